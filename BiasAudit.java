@@ -0,0 +1,161 @@
+package application;
+
+import java.util.Random;
+
+/**
+ * Audits a loaded die configuration.  A player setting a load factor of f on
+ * side L probably means "roll L f% of the time, otherwise roll the die as
+ * usual", which gives L a chance of f + (1 - f)/n.  The game actually rerolls
+ * the fair die until it isn't L, so L comes up exactly f of the time and every
+ * other side (1 - f)/(n - 1).  This works out both distributions exactly, then
+ * rolls the real DieGame and runs Wald's sequential probability ratio test
+ * between them, stopping as soon as the rolls decide which one the die follows
+ * instead of always making the maximum number of rolls.
+ *
+ *     java -cp <classpath> application.BiasAudit sides loadFactor loadedSide [alpha] [beta] [maxRolls]
+ *
+ * alpha and beta are the test's error rates (default 0.001 each) and maxRolls
+ * caps the audit (default 100,000,000).
+ */
+
+public class BiasAudit {
+
+	/**
+	 * What the audit concluded
+	 */
+	public enum Verdict {
+		/** the rolls follow the exact distribution of the implementation */
+		REALIZED,
+		/** the rolls follow the distribution the player would expect */
+		INTENDED,
+		/** the two distributions are the same, there is nothing to tell apart */
+		IDENTICAL,
+		/** maxRolls were made without a decision */
+		UNDECIDED
+	}
+
+	private final int sides;
+	private final int loadFactor;
+	private final int loadedSide;
+	private final double[] intended; //indexed by face, 0 unused
+	private final double[] realized;
+
+	/**
+	 * @throws IllegalArgumentException if the configuration isn't a valid loaded die
+	 */
+	public BiasAudit(int sides, int loadFactor, int loadedSide) {
+		if(sides < 2){
+			throw new IllegalArgumentException("Error: a loaded die needs at least 2 sides");
+		}
+		if((loadFactor < 1) || (loadFactor > 100)){
+			throw new IllegalArgumentException("Error: load factor must be within 1-100");
+		}
+		if((loadedSide < 1) || (loadedSide > sides)){
+			throw new IllegalArgumentException("Error: loaded side must be within 1-" + sides);
+		}
+		this.sides = sides;
+		this.loadFactor = loadFactor;
+		this.loadedSide = loadedSide;
+		double f = loadFactor / 100.0;
+		intended = new double[sides + 1];
+		realized = new double[sides + 1];
+		for(int face = 1; face <= sides; face++){
+			intended[face] = (1 - f) / sides + ((face == loadedSide) ? f : 0);
+			realized[face] = (face == loadedSide) ? f : (1 - f) / (sides - 1);
+		}
+	}
+
+	/**
+	 * The odds of each face the player would expect, indexed by face
+	 */
+	public double[] intended() {
+		return intended.clone();
+	}
+
+	/**
+	 * The exact odds of each face the game rolls, indexed by face
+	 */
+	public double[] realized() {
+		return realized.clone();
+	}
+
+	/**
+	 * The outcome of a sequential test
+	 */
+	public static class Result {
+		public final Verdict verdict;
+		public final long rolls; //rolls made before stopping
+		public final long loadedRolls; //how many of them were the loaded side
+		public final double logLikelihoodRatio; //log of P(rolls | intended) / P(rolls | realized)
+
+		Result(Verdict verdict, long rolls, long loadedRolls, double logLikelihoodRatio) {
+			this.verdict = verdict;
+			this.rolls = rolls;
+			this.loadedRolls = loadedRolls;
+			this.logLikelihoodRatio = logLikelihoodRatio;
+		}
+	}
+
+	/**
+	 * Rolls the real game's die until the test decides between the intended and
+	 * realized distributions, or maxRolls are made
+	 *
+	 * @param alpha chance of deciding INTENDED when the die follows REALIZED
+	 * @param beta chance of deciding REALIZED when the die follows INTENDED
+	 */
+	public Result run(Random rand, double alpha, double beta, long maxRolls) {
+		if(loadFactor == 100){ //the loaded side every time, either way
+			return new Result(Verdict.IDENTICAL, 0, 0, 0.0);
+		}
+		double loadedStep = Math.log(intended[loadedSide] / realized[loadedSide]);
+		int other = (loadedSide == 1) ? 2 : 1;
+		double otherStep = Math.log(intended[other] / realized[other]);
+		double upper = Math.log((1 - beta) / alpha); //at or above, the rolls follow the intended odds
+		double lower = Math.log(beta / (1 - alpha)); //at or below, they follow the realized odds
+		DieGame die = new DieGame(sides, true, loadFactor, loadedSide, rand);
+		double llr = 0.0;
+		long loaded = 0;
+		for(long roll = 1; roll <= maxRolls; roll++){
+			if(die.sample() == loadedSide){ //only whether it is the loaded side matters, every other side has the same odds
+				loaded++;
+				llr += loadedStep;
+			} else {
+				llr += otherStep;
+			}
+			if(llr >= upper){
+				return new Result(Verdict.INTENDED, roll, loaded, llr);
+			}
+			if(llr <= lower){
+				return new Result(Verdict.REALIZED, roll, loaded, llr);
+			}
+		}
+		return new Result(Verdict.UNDECIDED, maxRolls, loaded, llr);
+	}
+
+	public static void main(String[] args) {
+		if(args.length < 3){
+			System.err.println("Usage: BiasAudit sides loadFactor loadedSide [alpha] [beta] [maxRolls]");
+			System.exit(2);
+		}
+		int sides = Integer.parseInt(args[0]);
+		int loadFactor = Integer.parseInt(args[1]);
+		int loadedSide = Integer.parseInt(args[2]);
+		double alpha = (args.length > 3) ? Double.parseDouble(args[3]) : 0.001;
+		double beta = (args.length > 4) ? Double.parseDouble(args[4]) : 0.001;
+		long maxRolls = (args.length > 5) ? Long.parseLong(args[5]) : 100000000L;
+
+		BiasAudit audit = new BiasAudit(sides, loadFactor, loadedSide);
+		int other = (loadedSide == 1) ? 2 : 1;
+		System.out.printf("%d sides, load factor %d on side %d%n", sides, loadFactor, loadedSide);
+		System.out.printf("                intended   realized%n");
+		System.out.printf("loaded side     %.6f   %.6f%n", audit.intended[loadedSide], audit.realized[loadedSide]);
+		System.out.printf("each other side %.6f   %.6f%n", audit.intended[other], audit.realized[other]);
+
+		long began = System.nanoTime();
+		Result result = audit.run(new Random(), alpha, beta, maxRolls);
+		double millis = (System.nanoTime() - began) / 1e6;
+		System.out.printf("%s after %d rolls (%.1f ms), loaded side rolled %.6f of the time, log likelihood ratio %.3f%n",
+				result.verdict, result.rolls, millis, (result.rolls > 0) ? (double) result.loadedRolls / result.rolls : 0.0,
+				result.logLikelihoodRatio);
+	}
+}
@@ -0,0 +1,248 @@
+package application;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Several fair dice with the same number of sides rolled at once and combined
+ * into one value: their sum, the highest or the lowest.  The exact odds of every
+ * value are worked out rather than simulated.  For sums the single die's odds are
+ * convolved with themselves by repeated squaring, so k dice take about log2(k)
+ * convolutions, and the larger convolutions are done with an FFT (good to about
+ * 1e-16 absolute, so the far tails of a big sum are only approximately right).
+ * Odds are cached per (count, sides, combine), so asking twice costs nothing.
+ */
+
+public class Dice {
+
+	/**
+	 * How the dice are combined into the value rolled
+	 */
+	public enum Combine { SUM, MAX, MIN }
+
+	private static final int DIRECT_LIMIT = 64; //convolutions where both sides are longer than this use the FFT
+	private static final ConcurrentMap<String, double[]> odds = new ConcurrentHashMap<>();
+
+	private final int count; //how many dice are rolled
+	private final int sides; //sides on each die
+	private final Combine combine;
+
+	/**
+	 * @throws IllegalArgumentException if count or sides is less than 1, or the
+	 * highest sum doesn't fit in an int
+	 */
+	public Dice(int count, int sides, Combine combine) {
+		if((count < 1) || (sides < 1)){
+			throw new IllegalArgumentException("Error: there must be at least one die with at least one side");
+		}
+		if((combine == Combine.SUM) && ((long) count * sides > Integer.MAX_VALUE - 1)){
+			throw new IllegalArgumentException("Error: " + count + " dice with " + sides + " sides sum past an int");
+		}
+		this.count = count;
+		this.sides = sides;
+		this.combine = combine;
+	}
+
+	/**
+	 * Rolls every die and combines them
+	 */
+	public int roll(Random rand) {
+		int value = rand.nextInt(sides) + 1;
+		for(int i = 1; i < count; i++){
+			int die = rand.nextInt(sides) + 1;
+			switch(combine){
+			case MAX:
+				value = Math.max(value, die);
+				break;
+			case MIN:
+				value = Math.min(value, die);
+				break;
+			default:
+				value += die;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * The smallest value that can be rolled
+	 */
+	public int lowest() {
+		return (combine == Combine.SUM) ? count : 1;
+	}
+
+	/**
+	 * The largest value that can be rolled
+	 */
+	public int highest() {
+		return (combine == Combine.SUM) ? count * sides : sides;
+	}
+
+	/**
+	 * The exact odds of rolling each value, indexed by the value itself, so
+	 * entries below lowest() are 0.  The array is a copy and may be changed.
+	 */
+	public double[] distribution() {
+		return cached().clone();
+	}
+
+	/**
+	 * The odds of rolling exactly this value
+	 */
+	public double probability(int value) {
+		double[] table = cached();
+		return ((value < 0) || (value >= table.length)) ? 0.0 : table[value];
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public int getSides() {
+		return sides;
+	}
+
+	public Combine getCombine() {
+		return combine;
+	}
+
+	private double[] cached() {
+		String key = count + "d" + sides + combine;
+		double[] table = odds.get(key);
+		if(table == null){
+			table = odds.computeIfAbsent(key, k -> compute());
+		}
+		return table;
+	}
+
+	private double[] compute() {
+		double[] table = new double[highest() + 1];
+		if(combine == Combine.SUM){
+			double[] single = new double[sides]; //offset by 1, single[i] is the odds of rolling i + 1
+			Arrays.fill(single, 1.0 / sides);
+			double[] sum = power(single, count); //sum[i] is the odds of rolling count + i
+			System.arraycopy(sum, 0, table, count, sum.length);
+			return table;
+		}
+		//P(max <= v) = (v/sides)^count and P(min >= v) = ((sides - v + 1)/sides)^count
+		for(int v = 1; v <= sides; v++){
+			if(combine == Combine.MAX){
+				table[v] = Math.pow((double) v / sides, count) - Math.pow((double) (v - 1) / sides, count);
+			} else {
+				table[v] = Math.pow((double) (sides - v + 1) / sides, count) - Math.pow((double) (sides - v) / sides, count);
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * The distribution of the sum of k independent draws from pmf, by repeated
+	 * squaring.  Index i of the result is the sum of k lowest values plus i.
+	 */
+	static double[] power(double[] pmf, int k) {
+		double[] result = null;
+		double[] square = pmf;
+		while(k > 0){
+			if((k & 1) == 1){
+				result = (result == null) ? square : convolve(result, square);
+			}
+			k >>= 1;
+			if(k > 0){
+				square = convolve(square, square);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The distribution of the sum of one draw from each of a and b
+	 */
+	static double[] convolve(double[] a, double[] b) {
+		if(Math.min(a.length, b.length) <= DIRECT_LIMIT){
+			double[] c = new double[a.length + b.length - 1];
+			for(int i = 0; i < a.length; i++){
+				if(a[i] == 0.0){
+					continue;
+				}
+				for(int j = 0; j < b.length; j++){
+					c[i + j] += a[i] * b[j];
+				}
+			}
+			return c;
+		}
+		return convolveFFT(a, b);
+	}
+
+	private static double[] convolveFFT(double[] a, double[] b) {
+		int length = a.length + b.length - 1;
+		int n = Integer.highestOneBit(length);
+		if(n < length){
+			n <<= 1;
+		}
+		double[] re = new double[n];
+		double[] im = new double[n];
+		//both inputs are real, so pack b into the imaginary part and take one transform
+		for(int i = 0; i < a.length; i++){
+			re[i] = a[i];
+		}
+		for(int i = 0; i < b.length; i++){
+			im[i] = b[i];
+		}
+		fft(re, im, false);
+		//if Z = A + iB then A[k]B[k] = (Z[k]^2 - conj(Z[n-k])^2) / 4i
+		double[] pre = new double[n];
+		double[] pim = new double[n];
+		for(int k = 0; k < n; k++){
+			int m = (n - k) & (n - 1);
+			double zr = re[k], zi = im[k];
+			double wr = re[m], wi = -im[m];
+			double sr = zr * zr - zi * zi - (wr * wr - wi * wi);
+			double si = 2 * zr * zi - 2 * wr * wi;
+			pre[k] = si / 4; //divide by 4i
+			pim[k] = -sr / 4;
+		}
+		fft(pre, pim, true);
+		double[] c = new double[length];
+		for(int i = 0; i < length; i++){
+			c[i] = Math.max(0.0, pre[i] / n); //rounding can leave tiny negative odds
+		}
+		return c;
+	}
+
+	//in place iterative radix-2 FFT, n must be a power of two
+	private static void fft(double[] re, double[] im, boolean inverse) {
+		int n = re.length;
+		for(int i = 1, j = 0; i < n; i++){
+			int bit = n >> 1;
+			for(; (j & bit) != 0; bit >>= 1){
+				j ^= bit;
+			}
+			j ^= bit;
+			if(i < j){
+				double t = re[i]; re[i] = re[j]; re[j] = t;
+				t = im[i]; im[i] = im[j]; im[j] = t;
+			}
+		}
+		for(int len = 2; len <= n; len <<= 1){
+			double angle = 2 * Math.PI / len * (inverse ? 1 : -1);
+			double wr = Math.cos(angle), wi = Math.sin(angle);
+			for(int i = 0; i < n; i += len){
+				double ur = 1.0, ui = 0.0;
+				for(int j = 0; j < len / 2; j++){
+					int p = i + j, q = i + j + len / 2;
+					double vr = re[q] * ur - im[q] * ui;
+					double vi = re[q] * ui + im[q] * ur;
+					re[q] = re[p] - vr;
+					im[q] = im[p] - vi;
+					re[p] += vr;
+					im[p] += vi;
+					double nr = ur * wr - ui * wi;
+					ui = ur * wi + ui * wr;
+					ur = nr;
+				}
+			}
+		}
+	}
+}
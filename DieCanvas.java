@@ -0,0 +1,118 @@
+package application;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * Shows the die on one Canvas instead of swapping the Image of an ImageView.
+ * A sprite is drawn straight out of the shared image (the sprite sheet's
+ * viewport is the source rectangle), scaled to fit and kept to its aspect
+ * ratio the way the ImageView does.  Nothing is drawn when the sprite shown
+ * doesn't change, and when it does only the area the old and new sprites
+ * cover is cleared and redrawn, so the node never changes size and never
+ * needs laying out again.  A face without an image is drawn as its number.
+ * Must be used on the JavaFX thread.
+ */
+
+public class DieCanvas extends Canvas {
+
+	private DieImages.Sprite shown; //sprites are shared, so the same face is the same Sprite
+	private int shownNumber; //the face drawn as a number, 0 if a sprite is shown
+	private double shownX, shownY, shownWidth, shownHeight; //where it was drawn
+	private long repaints; //times a different sprite was drawn
+	private long skipped; //times the sprite asked for was already shown
+
+	public DieCanvas(double width, double height) {
+		super(width, height);
+	}
+
+	/**
+	 * Draws the sprite if it isn't the one already shown
+	 */
+	public void show(DieImages.Sprite sprite) {
+		if((sprite == shown) && (shownNumber == 0)){
+			skipped++;
+			return;
+		}
+		GraphicsContext g = getGraphicsContext2D();
+		clearShown(g);
+		double sx = 0, sy = 0;
+		double sw = sprite.image.getWidth(), sh = sprite.image.getHeight();
+		if(sprite.viewport != null){
+			sx = sprite.viewport.getMinX();
+			sy = sprite.viewport.getMinY();
+			sw = sprite.viewport.getWidth();
+			sh = sprite.viewport.getHeight();
+		}
+		double scale = Math.min(getWidth() / sw, getHeight() / sh); //fit inside, keeping the aspect ratio
+		shownX = 0;
+		shownY = 0;
+		shownWidth = sw * scale;
+		shownHeight = sh * scale;
+		g.drawImage(sprite.image, sx, sy, sw, sh, shownX, shownY, shownWidth, shownHeight);
+		shown = sprite;
+		shownNumber = 0;
+		repaints++;
+	}
+
+	/**
+	 * Draws a face as its number, for faces without an image
+	 */
+	public void showNumber(int face) {
+		if(face == shownNumber){
+			skipped++;
+			return;
+		}
+		GraphicsContext g = getGraphicsContext2D();
+		clearShown(g);
+		shownX = 0;
+		shownY = 0;
+		shownWidth = getWidth();
+		shownHeight = getWidth(); //a square die at the top, where the images go
+		g.setFill(Color.WHITE);
+		g.fillRoundRect(4, 4, shownWidth - 8, shownHeight - 8, 40, 40);
+		g.setStroke(Color.BLACK);
+		g.setLineWidth(4);
+		g.strokeRoundRect(4, 4, shownWidth - 8, shownHeight - 8, 40, 40);
+		g.setFill(Color.BLACK);
+		g.setFont(Font.font(null, FontWeight.BOLD, numberSize(face, shownWidth)));
+		g.setTextAlign(TextAlignment.CENTER);
+		g.setTextBaseline(VPos.CENTER);
+		g.fillText(Integer.toString(face), shownWidth / 2, shownHeight / 2);
+		shown = null;
+		shownNumber = face;
+		repaints++;
+	}
+
+	/**
+	 * A font size that fits the face's number across the width
+	 */
+	static double numberSize(int face, double width) {
+		int digits = Integer.toString(face).length();
+		return Math.min(120.0, 0.8 * width / (0.6 * digits)); //a bold digit is about 0.6 of the font size wide
+	}
+
+	//clears what was drawn last, only its area is dirty
+	private void clearShown(GraphicsContext g) {
+		if((shown != null) || (shownNumber != 0)){
+			g.clearRect(shownX, shownY, shownWidth, shownHeight);
+		}
+	}
+
+	public DieImages.Sprite getShown() {
+		return shown;
+	}
+
+	public long getRepaints() {
+		return repaints;
+	}
+
+	public long getSkipped() {
+		return skipped;
+	}
+}
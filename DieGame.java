@@ -0,0 +1,324 @@
+package application;
+
+import java.util.Random;
+
+/**
+ * The rules of the die game without any of the GUI, so rolls can be computed
+ * away from the JavaFX application thread.  In the standard game the first value
+ * rolled becomes the point, rolling the point again wins, and rolling a 1 at any
+ * time loses.  Every roll after the point is set that doesn't end the game adds
+ * one to the score.  Other house variants come from GameRules, compiled once per
+ * game into a FaceTable of what each face does, so a roll costs one lookup
+ * however many faces the die has.  A game
+ * can also be played with several fair Dice at once, the combined value (their
+ * sum, for instance) then plays the part of the face.
+ *
+ * A game is created on the JavaFX thread when Start is clicked and rolled on
+ * the RollDispatcher's worker, so the methods reading its state are synchronized.
+ */
+
+public class DieGame {
+
+	/**
+	 * What a single roll did to the game
+	 */
+	public enum Result { POINT, CONTINUE, WIN, LOSE }
+
+	/**
+	 * The face rolled, what it did, and the score after it, handed from the
+	 * worker to the GUI.  An Outcome can be filled in again by every roll, so the
+	 * steady-state roll loop allocates nothing; whoever keeps one past the next
+	 * roll has to copy it.
+	 */
+	public static class Outcome {
+		public DieGame game; //lets the GUI ignore outcomes of a game it has already replaced
+		public int dieTop;
+		public Result result;
+		public int score;
+
+		public Outcome() {
+		}
+
+		/**
+		 * Makes this outcome the same as another one
+		 */
+		public void copyFrom(Outcome other) {
+			this.game = other.game;
+			this.dieTop = other.dieTop;
+			this.result = other.result;
+			this.score = other.score;
+		}
+
+		public boolean isOver() {
+			return (result == Result.WIN) || (result == Result.LOSE);
+		}
+	}
+
+	final protected int lowestRoll = 1; // the lowest number you can roll, doesn't change
+	private final int highestRoll; // the largest number you can roll, the number of sides
+	private final boolean loaded; // whether or not the die is loaded
+	private final int loadFactor; //the percentage of rolling the loaded die side
+	private final int loadedSide; //which side of the die will be weighted
+	private final Random rand; // the random generator for the die
+	private final Dice dice; //rolled instead of the single die when the game uses several, null otherwise
+	private final GameRules rules; //the variant being played
+	private final FaceTable faces; //what each face does, compiled from the rules, points are marked as they are set
+	private int point; //the first value rolled, 0 until then
+	private int lastRoll; //the value showing, 0 before the first roll
+	private int pointsSet; //how many point values the opening rolls have set
+	private int pointsHit; //how many points have been rolled again, when all of them have to be
+	private int rounds; //rolls so far
+	private int score; //what the rolls survived since the points were set are worth
+	private boolean over; //set once the game is won or lost
+
+	/**
+	 * Creates a fair die game
+	 */
+	public DieGame(int numberOfSides, Random rand) {
+		this(numberOfSides, false, 0, 0, rand);
+	}
+
+	/**
+	 * Creates a game with a fair or loaded die
+	 *
+	 * @throws IllegalArgumentException if a loaded die has a loadFactor outside
+	 * 1-100 or a loadedSide that isn't one of its sides
+	 */
+	public DieGame(int numberOfSides, boolean loaded, int loadFactor, int loadedSide, Random rand) {
+		this(numberOfSides, loaded, loadFactor, loadedSide, rand, GameRules.STANDARD);
+	}
+
+	/**
+	 * Creates a game with a fair or loaded die played by a house variant
+	 *
+	 * @throws IllegalArgumentException if a loaded die has a loadFactor outside
+	 * 1-100 or a loadedSide that isn't one of its sides, or the variant can't
+	 * be played on this many sides
+	 */
+	public DieGame(int numberOfSides, boolean loaded, int loadFactor, int loadedSide, Random rand, GameRules rules) {
+		if(numberOfSides < 1){
+			throw new IllegalArgumentException("Error: n must be a positive number");
+		}
+		if(loaded && ((loadFactor < 1) || (loadFactor > 100))){
+			throw new IllegalArgumentException("Error: load factor must be within 1-100");
+		}
+		if(loaded && ((loadedSide < 1) || (loadedSide > numberOfSides))){
+			throw new IllegalArgumentException("Error: loaded side must be within 1-" + numberOfSides);
+		}
+		this.highestRoll = numberOfSides;
+		this.loaded = loaded;
+		this.loadFactor = loadFactor;
+		this.loadedSide = loadedSide;
+		this.rand = rand;
+		this.dice = null;
+		this.rules = rules;
+		this.faces = rules.compile(numberOfSides);
+	}
+
+	/**
+	 * Creates a game where every roll is several fair dice combined into one
+	 * value, the rules apply to that value
+	 *
+	 * @throws IllegalArgumentException if the variant can't be played on the
+	 * values the dice can roll
+	 */
+	public DieGame(Dice dice, Random rand, GameRules rules) {
+		this.highestRoll = dice.highest();
+		this.loaded = false;
+		this.loadFactor = 0;
+		this.loadedSide = 0;
+		this.rand = rand;
+		this.dice = dice;
+		this.rules = rules;
+		this.faces = rules.compile(dice.lowest(), dice.highest()); //values below lowest can't be rolled, so can't lose either
+	}
+
+	/**
+	 * Rolls the die once and applies the rules, returns null if the game is
+	 * already over
+	 */
+	public Outcome roll() {
+		Outcome outcome = new Outcome();
+		return roll(outcome) ? outcome : null;
+	}
+
+	/**
+	 * Rolls the die once and applies the rules, filling in the outcome given
+	 * instead of allocating one.  Returns false, leaving it alone, if the game
+	 * is already over.
+	 */
+	public synchronized boolean roll(Outcome outcome) {
+		if(over){
+			return false;
+		}
+		int dieTop = rollDie();
+		rounds++;
+		lastRoll = dieTop;
+		byte face = faces.get(dieTop);
+		Result result;
+		if(face == GameRules.LOSING){ //if first roll, they lose, or if rolled before they roll their point value again, they lose
+			result = Result.LOSE;
+		} else if(pointsSet < rules.getPoints()){ //the opening rolls only keep the point values, a repeat is ignored
+			if(face != GameRules.POINT){
+				faces.mark(dieTop, GameRules.POINT);
+				pointsSet++;
+				if(point == 0){
+					point = dieTop;
+				}
+			}
+			result = Result.POINT;
+		} else if(face == GameRules.POINT){
+			result = rules.isPointWin() ? Result.WIN : Result.LOSE;
+			if(rules.isAllPoints() && (++pointsHit < pointsSet)){ //still more points to roll
+				faces.mark(dieTop, GameRules.HIT);
+				result = Result.CONTINUE;
+			}
+		} else {
+			score += rules.score(dieTop);
+			result = Result.CONTINUE;
+		}
+		if((result == Result.CONTINUE || result == Result.POINT) && (rounds == rules.getRounds())){ //out of rolls
+			result = rules.isPointWin() ? Result.LOSE : Result.WIN;
+		}
+		over = (result == Result.WIN) || (result == Result.LOSE);
+		outcome.game = this;
+		outcome.dieTop = dieTop;
+		outcome.result = result;
+		outcome.score = score;
+		return true;
+	}
+
+	/**
+	 * Rolls the die (or dice) without playing the roll, for audits that only
+	 * care what the die produces
+	 */
+	synchronized int sample() {
+		return rollDie();
+	}
+
+	//rolls from 1-100, compares with user given factor, if value is not bigger than roll factor, loaded side is rolled,
+	//else, roll as fair die, but will keep rolling as fair until it rolls a number that is not the loadedSide
+	private int rollDie() {
+		if(dice != null){
+			return dice.roll(rand);
+		}
+		if(loaded){
+			int rollValue = rand.nextInt((100 - 1) + 1) + 1; // generates a new randomized integer
+			if(rollValue <= loadFactor){
+				return loadedSide;
+			}
+			int dieTop = rand.nextInt((highestRoll - lowestRoll) + 1) + lowestRoll;
+			while(dieTop == loadedSide){ //keeps rolling until it rolls anything but the loaded die
+				dieTop = rand.nextInt((highestRoll - lowestRoll) + 1) + lowestRoll;
+			}
+			return dieTop;
+		}
+		return rand.nextInt((highestRoll - lowestRoll) + 1) + lowestRoll; // generates a new randomized integer
+	}
+
+	/**
+	 * The first point value set, 0 until the first roll
+	 */
+	public synchronized int getPoint() {
+		return point;
+	}
+
+	public synchronized int getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * The dice rolled, or null when the game uses a single die
+	 */
+	public Dice getDice() {
+		return dice;
+	}
+
+	public GameRules getRules() {
+		return rules;
+	}
+
+	public synchronized int getScore() {
+		return score;
+	}
+
+	/**
+	 * The value of the latest roll, 0 before the first one
+	 */
+	public synchronized int getLastRoll() {
+		return lastRoll;
+	}
+
+	public Random getRandom() {
+		return rand;
+	}
+
+	/**
+	 * What a face does in this game, POINT or HIT once it has been marked
+	 */
+	synchronized byte getFace(int face) {
+		return faces.get(face);
+	}
+
+	/**
+	 * How many faces are marked as points
+	 */
+	synchronized int getMarked() {
+		return faces.getMarked();
+	}
+
+	/**
+	 * The face marked as a point i-th, from 0, in the order the points were set
+	 */
+	synchronized int getMarkedFace(int i) {
+		return faces.getMarkedFace(i);
+	}
+
+	/**
+	 * Puts a freshly created game back to a saved position, used by GameSnapshot.
+	 * markedFaces are the faces marked as points and marks what each was marked as.
+	 */
+	synchronized void restore(int[] markedFaces, byte[] marks, int point, int lastRoll, int pointsSet, int pointsHit, int rounds, int score, boolean over) {
+		for(int i = 0; i < markedFaces.length; i++){
+			if((markedFaces[i] < lowestRoll) || (markedFaces[i] > highestRoll)){
+				throw new IllegalArgumentException("Error: saved game marks face " + markedFaces[i] + " of a " + highestRoll + " sided die");
+			}
+			faces.mark(markedFaces[i], marks[i]);
+		}
+		this.point = point;
+		this.lastRoll = lastRoll;
+		this.pointsSet = pointsSet;
+		this.pointsHit = pointsHit;
+		this.rounds = rounds;
+		this.score = score;
+		this.over = over;
+	}
+
+	synchronized int getPointsSet() {
+		return pointsSet;
+	}
+
+	synchronized int getPointsHit() {
+		return pointsHit;
+	}
+
+	public synchronized boolean isOver() {
+		return over;
+	}
+
+	public int getNumberOfSides() {
+		return highestRoll;
+	}
+
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	public int getLoadFactor() {
+		return loadFactor;
+	}
+
+	public int getLoadedSide() {
+		return loadedSide;
+	}
+}
@@ -0,0 +1,236 @@
+package application;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+
+/**
+ * Loads the die faces and the rules, winner and loser images once each and
+ * hands the same Image to every view that shows it.  By default everything
+ * comes from the sprite sheet packed by SpritePacker, one file read and one
+ * decoded image with each picture served as a viewport into it.  Without a
+ * sheet an image bigger than the size it is displayed at is decoded straight
+ * to that size, so a 50 sided die never keeps 50 oversized JPEGs in memory (and
+ * in textures) to be scaled down on every frame.  An image that already fits is
+ * decoded at its own size, never scaled up, since that would only cost more
+ * memory.  Images are safe to load off the JavaFX thread.
+ */
+
+public class DieImages {
+
+	/**
+	 * An image and the part of it to show, the viewport is null when the
+	 * whole image is shown
+	 */
+	public static class Sprite {
+		public final Image image;
+		public final Rectangle2D viewport;
+
+		Sprite(Image image, Rectangle2D viewport) {
+			this.image = image;
+			this.viewport = viewport;
+		}
+	}
+
+	public static final String SHEET = "DieSprites.bin"; //written by SpritePacker next to the images
+	public static final int FACES = 50; //Die_1.jpg to Die_50.jpg, bigger faces are shown as numbers
+
+	private final double width; //the size the images are displayed at
+	private final double height;
+	private final boolean downsample; //false decodes at full resolution, like new Image(stream) does
+	private final SpriteSheet sheet; //null when the images are loaded one by one
+	private final ConcurrentMap<String, Sprite> images = new ConcurrentHashMap<>();
+	private final Sprite[] faces = new Sprite[FACES + 1]; //faces already looked up, so rolling doesn't build a name every time
+	private final AtomicLong residentBytes = new AtomicLong(); //pixel memory held by the decoded images
+
+	/**
+	 * Creates the images for one of the loading modes: "sheet" uses the sprite
+	 * sheet and falls back to "scaled" if there isn't one, "scaled" decodes each
+	 * image at display size if it is bigger and "full" decodes each image at its
+	 * own size
+	 */
+	public static DieImages create(double width, double height, String mode) {
+		if("full".equals(mode)){
+			return new DieImages(width, height, false);
+		}
+		if(!"scaled".equals(mode)){
+			try {
+				SpriteSheet sheet = SpriteSheet.load(SHEET);
+				if(sheet != null){
+					return new DieImages(width, height, sheet);
+				}
+			} catch ( IOException ioe ) {
+				System.err.println("Sprite sheet not usable, loading images separately: " + ioe.getMessage());
+			}
+		}
+		return new DieImages(width, height, true);
+	}
+
+	/**
+	 * @param downsample decode images bigger than width x height to that size
+	 * (keeping the aspect ratio) instead of the image's own size
+	 */
+	public DieImages(double width, double height, boolean downsample) {
+		this.width = width;
+		this.height = height;
+		this.downsample = downsample;
+		this.sheet = null;
+	}
+
+	/**
+	 * Serves every image out of an already loaded sprite sheet
+	 */
+	public DieImages(double width, double height, SpriteSheet sheet) {
+		this.width = width;
+		this.height = height;
+		this.downsample = false;
+		this.sheet = sheet;
+		residentBytes.set((long) sheet.getImage().getWidth() * (long) sheet.getImage().getHeight() * 4);
+	}
+
+	/**
+	 * The image for a face of the die, Die_1.jpg to Die_50.jpg
+	 *
+	 * @throws NullPointerException if the image is not within the package directory
+	 */
+	public Sprite face(int dieTop) {
+		if((dieTop < 0) || (dieTop >= faces.length)){
+			return get("Die_" + dieTop + ".jpg");
+		}
+		Sprite sprite = faces[dieTop]; //sprites are immutable, so a racing lookup just finds the same one
+		if(sprite == null){
+			sprite = get("Die_" + dieTop + ".jpg");
+			faces[dieTop] = sprite;
+		}
+		return sprite;
+	}
+
+	/**
+	 * Whether there is an image for this face, faces without one are shown as
+	 * a number
+	 */
+	public boolean hasFace(int dieTop) {
+		return (dieTop >= 1) && (dieTop <= FACES);
+	}
+
+	public Sprite rules() {
+		return get("DieGameRules.jpg");
+	}
+
+	public Sprite winner() {
+		return get("Winner.jpg");
+	}
+
+	public Sprite loser() {
+		return get("Loser.jpg");
+	}
+
+	/**
+	 * Bytes of pixel data held by every image loaded so far, at 4 bytes a pixel
+	 */
+	public long getResidentBytes() {
+		return residentBytes.get();
+	}
+
+	/**
+	 * Number of distinct images loaded so far
+	 */
+	public int getLoaded() {
+		return images.size();
+	}
+
+	public boolean isDownsampled() {
+		return downsample;
+	}
+
+	public boolean isSpriteSheet() {
+		return sheet != null;
+	}
+
+	private Sprite get(String name) {
+		Sprite sprite = images.get(name);
+		if(sprite == null){
+			sprite = images.computeIfAbsent(name, this::load);
+		}
+		return sprite;
+	}
+
+	private Sprite load(String name) {
+		if(sheet != null){
+			Rectangle2D viewport = sheet.viewport(name);
+			if(viewport == null){
+				throw new NullPointerException(name + " not packed into " + SHEET);
+			}
+			return new Sprite(sheet.getImage(), viewport);
+		}
+		InputStream stream = Main.class.getResourceAsStream(name);
+		if(stream == null){
+			throw new NullPointerException(name + " not available in package directory.");
+		}
+		try {
+			Image image;
+			if(downsample){
+				byte[] bytes = readAll(stream);
+				int[] size = sourceSize(bytes);
+				boolean fits = (size != null) && (size[0] <= width) && (size[1] <= height);
+				image = fits ? new Image(new ByteArrayInputStream(bytes)) //already small enough, never scaled up
+						: new Image(new ByteArrayInputStream(bytes), width, height, true, true);
+			} else {
+				image = new Image(stream);
+			}
+			residentBytes.addAndGet((long) image.getWidth() * (long) image.getHeight() * 4);
+			return new Sprite(image, null);
+		} finally {
+			try {
+				stream.close();
+			} catch ( IOException ioe ) {
+				//the image is already decoded, nothing left to do with the stream
+			}
+		}
+	}
+
+	private static byte[] readAll(InputStream stream) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+			byte[] chunk = new byte[8192];
+			int read;
+			while((read = stream.read(chunk)) > 0){
+				bytes.write(chunk, 0, read);
+			}
+			return bytes.toByteArray();
+		} catch ( IOException ioe ) {
+			throw new NullPointerException("Image could not be read: " + ioe.getMessage()); //reported like a missing image
+		}
+	}
+
+	//the width and height of an encoded image from its header alone, null if no reader knows the format
+	private static int[] sourceSize(byte[] bytes) {
+		try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+			if(!readers.hasNext()){
+				return null;
+			}
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(in, true, true);
+				return new int[] { reader.getWidth(0), reader.getHeight(0) };
+			} finally {
+				reader.dispose();
+			}
+		} catch ( IOException ioe ) {
+			return null; //decoded at display size then, as before
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package application;
+
+import java.util.Random;
+
+/**
+ * Counts how often each face comes up, for statistics over dice with any
+ * number of faces.  Only faces that have actually been rolled take up room,
+ * in an open addressing hash table that doubles when it gets half full, so
+ * counting a million faced die costs memory for the faces seen rather than a
+ * slot for every face, and a count is one lookup however many faces there are.
+ * Not thread safe; Main counts every roll on its worker for the diagnostics
+ * line and locks the counts to read them on the JavaFX thread.
+ *
+ *     java -cp <classpath> application.FaceCounts sides [rolls] [seed]
+ *
+ * plays standard games back to back on a fair die with that many sides until
+ * rolls have been made (default 10,000,000) and prints what was counted.
+ */
+
+public class FaceCounts {
+
+	private int[] faces = new int[16]; //0 marks an empty slot, faces start at 1
+	private long[] counts = new long[16];
+	private int distinct; //faces counted at least once
+	private long total; //every count added together
+
+	/**
+	 * Counts one more roll of the face, which must be 1 or more
+	 */
+	public void add(int face) {
+		int slot = slot(faces, face);
+		if(faces[slot] == 0){
+			if(2 * (distinct + 1) > faces.length){
+				grow();
+				slot = slot(faces, face);
+			}
+			faces[slot] = face;
+			distinct++;
+		}
+		counts[slot]++;
+		total++;
+	}
+
+	/**
+	 * How many times the face has been counted
+	 */
+	public long get(int face) {
+		int slot = slot(faces, face);
+		return (faces[slot] == face) ? counts[slot] : 0;
+	}
+
+	/**
+	 * Number of different faces counted
+	 */
+	public int getDistinct() {
+		return distinct;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * The face counted most often, 0 if nothing has been counted, the lowest
+	 * such face on a tie
+	 */
+	public int getMostCommon() {
+		int best = 0;
+		long bestCount = 0;
+		for(int slot = 0; slot < faces.length; slot++){
+			if((faces[slot] != 0) && ((counts[slot] > bestCount) || ((counts[slot] == bestCount) && (faces[slot] < best)))){
+				best = faces[slot];
+				bestCount = counts[slot];
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Bytes held by the table, leaving out the object headers
+	 */
+	public long getBytes() {
+		return 12L * faces.length;
+	}
+
+	private void grow() {
+		int[] oldFaces = faces;
+		long[] oldCounts = counts;
+		faces = new int[oldFaces.length * 2];
+		counts = new long[oldCounts.length * 2];
+		for(int i = 0; i < oldFaces.length; i++){
+			if(oldFaces[i] != 0){
+				int slot = slot(faces, oldFaces[i]);
+				faces[slot] = oldFaces[i];
+				counts[slot] = oldCounts[i];
+			}
+		}
+	}
+
+	//the slot holding the face, or the empty one it would go in
+	private static int slot(int[] faces, int face) {
+		int slot = (face * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(faces.length));
+		while((faces[slot] != 0) && (faces[slot] != face)){
+			slot = (slot + 1) & (faces.length - 1);
+		}
+		return slot;
+	}
+
+	public static void main(String[] args) {
+		if(args.length < 1){
+			System.err.println("Usage: FaceCounts sides [rolls] [seed]");
+			System.exit(2);
+		}
+		int sides = Integer.parseInt(args[0]);
+		long rolls = (args.length > 1) ? Long.parseLong(args[1]) : 10000000L;
+		Random rand = new Random((args.length > 2) ? Long.parseLong(args[2]) : System.nanoTime());
+
+		FaceCounts counts = new FaceCounts();
+		DieGame.Outcome outcome = new DieGame.Outcome();
+		DieGame game = new DieGame(sides, rand);
+		long games = 1;
+		long began = System.nanoTime();
+		for(long roll = 0; roll < rolls; roll++){
+			if(!game.roll(outcome)){
+				game = new DieGame(sides, rand);
+				games++;
+				game.roll(outcome);
+			}
+			counts.add(outcome.dieTop);
+		}
+		double nanos = System.nanoTime() - began;
+
+		int common = counts.getMostCommon();
+		double expected = sides * -Math.expm1(rolls * Math.log1p(-1.0 / sides)); //faces a fair die shows at least once
+		System.out.printf("%d sided die, %d rolls over %d games, %.1f ns per roll%n", sides, rolls, games, nanos / rolls);
+		System.out.printf("%d distinct faces rolled (%.0f expected from a fair die)%n", counts.getDistinct(), expected);
+		System.out.printf("most common face %d, rolled %d times (%.1f expected)%n", common, counts.get(common), (double) rolls / sides);
+		System.out.printf("counters hold %d KB, the game's face table %d bytes%n", counts.getBytes() / 1024,
+				GameRules.STANDARD.compile(sides).getBytes());
+	}
+}
@@ -0,0 +1,163 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * What every face of a die does in one game, compiled from GameRules: NEUTRAL,
+ * LOSING, or POINT and HIT as the points are set and rolled again.  A die with
+ * up to DENSE_LIMIT faces keeps a byte per face.  A bigger die only keeps the
+ * faces that aren't neutral, the losing faces and the points, in a hash table
+ * that doubles when it gets half full, so a roll is one lookup either way and
+ * a die with a million faces costs no more memory than one with fifty.  The
+ * faces marked as points are listed in the order they were set, in a list
+ * that also grows as points are set, so saving a game never has to look at
+ * every face, and rules (or a corrupt save) allowing millions of points cost
+ * nothing until the points are actually set.
+ */
+
+public class FaceTable {
+
+	static final int DENSE_LIMIT = 1 << 16; //bigger dice use the hash table
+
+	private final int lowest; //faces outside lowest-highest can't be rolled
+	private final int highest;
+	private final byte[] dense; //indexed by face, null for a sparse table
+	private int[] keys; //the sparse table, open addressing with 0 for an empty slot
+	private byte[] values;
+	private int shift; //turns a hashed face into a slot
+	private int used; //faces in the sparse table
+	private final int markLimit; //the most faces that can be marked as points
+	private int[] marked; //faces marked as points, in the order they were set
+	private int markedCount;
+	private int losingCount; //distinct losing faces that can be rolled
+
+	/**
+	 * @param losing the faces that lose, those that can't be rolled are left out
+	 * @param points the most faces that will ever be marked as points
+	 */
+	FaceTable(int lowest, int highest, int[] losing, int points) {
+		this.lowest = lowest;
+		this.highest = highest;
+		this.markLimit = Math.min(points, highest - lowest + 1);
+		this.marked = new int[Math.min(markLimit, 16)];
+		if(highest <= DENSE_LIMIT){
+			dense = new byte[highest + 1];
+		} else {
+			dense = null;
+			resize(Integer.highestOneBit(Math.max(8, 2 * (losing.length + marked.length)) - 1) << 1); //at most half full
+		}
+		for(int face : losing){
+			if((face >= lowest) && (face <= highest) && (get(face) != GameRules.LOSING)){
+				put(face, GameRules.LOSING);
+				losingCount++;
+			}
+		}
+	}
+
+	/**
+	 * What a face does, NEUTRAL for any face that can't be rolled
+	 */
+	public byte get(int face) {
+		if((face < lowest) || (face > highest)){
+			return GameRules.NEUTRAL;
+		}
+		if(dense != null){
+			return dense[face];
+		}
+		int slot = slot(face);
+		return (keys[slot] == face) ? values[slot] : GameRules.NEUTRAL;
+	}
+
+	/**
+	 * Marks a face as a point (POINT) or as a point already rolled (HIT)
+	 */
+	void mark(int face, byte mark) {
+		byte was = get(face);
+		if((was != GameRules.POINT) && (was != GameRules.HIT)){
+			if(markedCount == markLimit){
+				throw new IllegalStateException("Error: more than " + markLimit + " points marked");
+			}
+			if(markedCount == marked.length){
+				marked = Arrays.copyOf(marked, (int) Math.min(markLimit, 2L * marked.length));
+			}
+			marked[markedCount++] = face;
+		}
+		put(face, mark);
+	}
+
+	/**
+	 * How many faces are marked as points
+	 */
+	public int getMarked() {
+		return markedCount;
+	}
+
+	/**
+	 * The face marked as a point i-th, from 0
+	 */
+	public int getMarkedFace(int i) {
+		return marked[i];
+	}
+
+	/**
+	 * How many faces can be rolled without losing
+	 */
+	public int getSafe() {
+		return (highest - lowest + 1) - losingCount;
+	}
+
+	public boolean isSparse() {
+		return dense == null;
+	}
+
+	/**
+	 * Bytes held by the table, leaving out the object headers
+	 */
+	public long getBytes() {
+		return (dense != null) ? dense.length + 4L * marked.length : 5L * keys.length + 4L * marked.length;
+	}
+
+	private void put(int face, byte value) {
+		if(dense != null){
+			dense[face] = value;
+			return;
+		}
+		int slot = slot(face);
+		if(keys[slot] == 0){
+			if(2 * (used + 1) > keys.length){
+				resize(keys.length * 2);
+				slot = slot(face);
+			}
+			used++;
+		}
+		keys[slot] = face;
+		values[slot] = value;
+	}
+
+	//moves the sparse table to a new one with that many slots
+	private void resize(int slots) {
+		int[] oldKeys = keys;
+		byte[] oldValues = values;
+		keys = new int[slots];
+		values = new byte[slots];
+		shift = 32 - Integer.numberOfTrailingZeros(slots);
+		if(oldKeys != null){
+			for(int i = 0; i < oldKeys.length; i++){
+				if(oldKeys[i] != 0){
+					int slot = slot(oldKeys[i]);
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+				}
+			}
+		}
+	}
+
+	//the slot holding the face, or the empty one it would go in
+	private int slot(int face) {
+		int slot = (face * 0x9E3779B9) >>> shift;
+		while((keys[slot] != 0) && (keys[slot] != face)){
+			slot = (slot + 1) & (keys.length - 1);
+		}
+		return slot;
+	}
+}
@@ -0,0 +1,171 @@
+package application;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * A house variant of the die game, read from a properties file:
+ *
+ *     losing=1          faces that lose the game as soon as they are rolled, comma separated, may be empty
+ *     points=1          how many different values the opening rolls set as points
+ *     win=any           any: rolling one of the points ends the game, all: every point has to be rolled
+ *     point=win         whether rolling the point(s) wins (as in the game) or loses (as in the README)
+ *     rounds=0          most rolls a game may last, 0 for no limit
+ *     score=count       what a roll that is neither a point nor losing scores, count: 1, face: its value
+ *
+ * A missing key keeps the standard rule.  When the round limit is reached the
+ * game ends the opposite way to rolling the point: if the point wins you ran
+ * out of time and lose, if the point loses you survived and win.
+ *
+ * The rules are compiled for a number of sides into a FaceTable of what each
+ * face does, so rolling never looks at the rules themselves.
+ */
+
+public class GameRules {
+
+	/**
+	 * The game as Main has always played it: a 1 loses, the first roll sets the
+	 * point, rolling it again wins, one point for every other roll
+	 */
+	public static final GameRules STANDARD = new GameRules(new int[] { 1 }, 1, false, true, 0, false);
+
+	//what a face does, the entries of a FaceTable
+	static final byte NEUTRAL = 0; //scores
+	static final byte LOSING = 1; //ends the game as a loss
+	static final byte POINT = 2; //set as a point this game, only ever written into a game's own copy
+	static final byte HIT = 3; //a point already rolled when all points have to be rolled, scores again
+
+	private final int[] losing; //faces that lose as soon as they are rolled
+	private final int points; //number of point values set by the opening rolls
+	private final boolean allPoints; //every point must be rolled to end the game, rather than any one
+	private final boolean pointWins; //rolling the point(s) wins, or loses
+	private final int rounds; //roll limit, 0 for none
+	private final boolean faceScore; //a scoring roll is worth its face value instead of 1
+
+	public GameRules(int[] losing, int points, boolean allPoints, boolean pointWins, int rounds, boolean faceScore) {
+		if(points < 1){
+			throw new IllegalArgumentException("Error: points must be at least 1");
+		}
+		if(rounds < 0){
+			throw new IllegalArgumentException("Error: rounds must be 0 or more");
+		}
+		this.losing = losing.clone();
+		this.points = points;
+		this.allPoints = allPoints;
+		this.pointWins = pointWins;
+		this.rounds = rounds;
+		this.faceScore = faceScore;
+	}
+
+	/**
+	 * Reads a variant from a properties file
+	 *
+	 * @throws IOException if the file can't be read
+	 * @throws IllegalArgumentException if a value isn't one of the ones described above
+	 */
+	public static GameRules load(File file) throws IOException {
+		Properties properties = new Properties();
+		try (InputStream in = new FileInputStream(file)) {
+			properties.load(in);
+		}
+		return parse(properties);
+	}
+
+	/**
+	 * Builds a variant from properties already loaded, see the class comment
+	 *
+	 * @throws IllegalArgumentException if a value isn't one of the ones described above
+	 */
+	public static GameRules parse(Properties properties) {
+		String losingList = properties.getProperty("losing", "1").trim();
+		String[] faces = losingList.isEmpty() ? new String[0] : losingList.split(",");
+		int[] losing = new int[faces.length];
+		for(int i = 0; i < faces.length; i++){
+			losing[i] = Integer.parseInt(faces[i].trim());
+		}
+		int points = Integer.parseInt(properties.getProperty("points", "1").trim());
+		boolean allPoints = choice(properties, "win", "any", "all");
+		boolean pointLoses = choice(properties, "point", "win", "lose");
+		int rounds = Integer.parseInt(properties.getProperty("rounds", "0").trim());
+		boolean faceScore = choice(properties, "score", "count", "face");
+		return new GameRules(losing, points, allPoints, !pointLoses, rounds, faceScore);
+	}
+
+	//true for the second option, false for the first or a missing key
+	private static boolean choice(Properties properties, String key, String first, String second) {
+		String value = properties.getProperty(key, first).trim().toLowerCase();
+		if(!value.equals(first) && !value.equals(second)){
+			throw new IllegalArgumentException("Error: " + key + " must be " + first + " or " + second);
+		}
+		return value.equals(second);
+	}
+
+	/**
+	 * The table of what each face does on a die with this many sides.  Losing
+	 * faces beyond the die are ignored.
+	 *
+	 * @throws IllegalArgumentException if every face loses, or there aren't
+	 * enough faces left over for the points
+	 */
+	public FaceTable compile(int numberOfSides) {
+		return compile(1, numberOfSides);
+	}
+
+	/**
+	 * The table of what each value does when only lowest-highest can be rolled,
+	 * as with several dice summed.  Losing values that can't be rolled are ignored.
+	 *
+	 * @throws IllegalArgumentException if every value loses, or there aren't
+	 * enough values left over for the points
+	 */
+	public FaceTable compile(int lowest, int highest) {
+		FaceTable table = new FaceTable(lowest, highest, losing, points);
+		if(table.getSafe() < points){
+			throw new IllegalArgumentException("Error: a " + highest + " sided die needs at least " + points
+					+ " faces that don't lose");
+		}
+		return table;
+	}
+
+	/**
+	 * What a scoring roll of this face is worth
+	 */
+	public int score(int face) {
+		return faceScore ? face : 1;
+	}
+
+	public int getPoints() {
+		return points;
+	}
+
+	public boolean isAllPoints() {
+		return allPoints;
+	}
+
+	public boolean isPointWin() {
+		return pointWins;
+	}
+
+	public int getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * The faces that lose as soon as they are rolled, a copy
+	 */
+	public int[] getLosing() {
+		return losing.clone();
+	}
+
+	//the losing faces without a copy, for writing snapshots without allocating
+	int[] losing() {
+		return losing;
+	}
+
+	public boolean isFaceScore() {
+		return faceScore;
+	}
+}
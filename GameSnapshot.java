@@ -0,0 +1,311 @@
+package application;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Saves a game in progress, everything needed to carry on exactly where it
+ * was left including the state of the random generator, as a few dozen bytes:
+ *
+ *     int magic, int version,
+ *     the die: int sides, boolean loaded, int loadFactor, int loadedSide,
+ *              int dice (0 for a single die), int combine,
+ *     the rules: int losing count, losing faces, int points, boolean all,
+ *                boolean pointWins, int rounds, boolean faceScore,
+ *     the game: int point, int lastRoll, int pointsSet, int pointsHit,
+ *               int rounds, int score, boolean over,
+ *               int marked count, (int face, byte mark) for every point marked,
+ *     long random state (-1 if the generator can't be saved)
+ *
+ * Taking a snapshot is cheap enough to do on every roll, and reuses the same
+ * buffer every time so it allocates nothing.  Writing it to disk is left to a
+ * background thread that only ever writes the newest one, replacing the file
+ * atomically so a crash can't leave half a save behind.
+ */
+
+public class GameSnapshot {
+
+	private static final int MAGIC = 0x44475356; //"DGSV"
+	private static final int VERSION = 1;
+
+	private final File file;
+	private final Object pending = new Object(); //guards the snapshot buffer and dirty
+	private final Buffer buffer = new Buffer(); //the newest snapshot, rewritten in place on every roll
+	private final DataOutputStream snapshot = new DataOutputStream(buffer);
+	private boolean dirty; //the buffer holds a snapshot not written to the file yet
+	private final Object writing = new Object(); //held while the file is being replaced
+	private byte[] copy = new byte[256]; //what the writer is writing, so rolling can carry on meanwhile
+	private volatile long writes; //snapshots written to the file, only changed holding writing
+	private final Thread writer;
+
+	/**
+	 * A ByteArrayOutputStream whose array can be read without copying it
+	 */
+	private static class Buffer extends ByteArrayOutputStream {
+		Buffer() {
+			super(256);
+		}
+
+		byte[] array() {
+			return buf;
+		}
+	}
+
+	/**
+	 * Starts the background writer for saves to this file
+	 */
+	public GameSnapshot(File file) {
+		this.file = file;
+		this.writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while(!Thread.currentThread().isInterrupted()){
+					synchronized(pending){
+						while(!dirty){
+							try {
+								pending.wait();
+							} catch ( InterruptedException ie ) {
+								return;
+							}
+						}
+					}
+					flush();
+				}
+			}
+		}, "die-game-saver");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Snapshots the game now and writes it in the background, replacing any
+	 * snapshot still waiting to be written
+	 */
+	public void saveAsync(DieGame game) {
+		synchronized(pending){
+			buffer.reset();
+			try {
+				write(game, snapshot);
+			} catch ( IOException ioe ) {
+				throw new IllegalStateException(ioe); //can't happen writing to memory
+			}
+			dirty = true;
+			pending.notify();
+		}
+	}
+
+	/**
+	 * Writes whatever snapshot is waiting before returning, for use on exit
+	 */
+	public void flush() {
+		synchronized(writing){
+			int length;
+			synchronized(pending){
+				if(!dirty){
+					return;
+				}
+				length = buffer.size();
+				if(copy.length < length){
+					copy = new byte[Math.max(length, copy.length * 2)];
+				}
+				System.arraycopy(buffer.array(), 0, copy, 0, length);
+				dirty = false;
+			}
+			try {
+				File parent = file.getAbsoluteFile().getParentFile();
+				if(parent != null){
+					parent.mkdirs();
+				}
+				File temp = new File(file.getPath() + ".tmp");
+				try (FileOutputStream out = new FileOutputStream(temp)) {
+					out.write(copy, 0, length);
+				}
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				writes++;
+			} catch ( IOException ioe ) {
+				System.err.println("Could not save game: " + ioe.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * The background thread writing the saves, for measuring what it allocates
+	 */
+	public Thread getWriter() {
+		return writer;
+	}
+
+	/**
+	 * Snapshots written to the file so far, fewer than saved when rolls come
+	 * faster than the file can be replaced
+	 */
+	public long getWrites() {
+		return writes;
+	}
+
+	/**
+	 * Reads the saved game back, restoring rand to the state it was in, or
+	 * returns null if there is no save
+	 *
+	 * @throws IOException if the save can't be read or isn't a save
+	 */
+	public DieGame resume(RestorableRandom rand) throws IOException {
+		if(!file.isFile()){
+			return null;
+		}
+		return fromBytes(Files.readAllBytes(file.toPath()), rand);
+	}
+
+	/**
+	 * Moves a save that can't be read out of the way, to <file>.corrupt, so
+	 * every later start doesn't fail on it again.  Returns where it went, or
+	 * null if it couldn't be moved and was deleted instead.
+	 */
+	public File setAside() {
+		synchronized(writing){
+			File aside = new File(file.getPath() + ".corrupt");
+			try {
+				Files.move(file.toPath(), aside.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				return aside;
+			} catch ( IOException ioe ) {
+				file.delete();
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Removes the save, so a finished game isn't offered again
+	 */
+	public void delete() {
+		synchronized(writing){
+			synchronized(pending){
+				dirty = false;
+			}
+			file.delete();
+		}
+	}
+
+	/**
+	 * The game as bytes in the format described above
+	 */
+	public static byte[] toBytes(DieGame game) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			write(game, out);
+			out.flush();
+		} catch ( IOException ioe ) {
+			throw new IllegalStateException(ioe); //can't happen writing to memory
+		}
+		return bytes.toByteArray();
+	}
+
+	//writes the snapshot without allocating anything
+	private static void write(DieGame game, DataOutputStream out) throws IOException {
+		synchronized(game){ //a consistent position, even if the worker is rolling
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			Dice dice = game.getDice();
+			out.writeInt((dice == null) ? game.getNumberOfSides() : dice.getSides());
+			out.writeBoolean(game.isLoaded());
+			out.writeInt(game.getLoadFactor());
+			out.writeInt(game.getLoadedSide());
+			out.writeInt((dice == null) ? 0 : dice.getCount());
+			out.writeInt((dice == null) ? 0 : dice.getCombine().ordinal());
+			GameRules rules = game.getRules();
+			int[] losing = rules.losing();
+			out.writeInt(losing.length);
+			for(int face : losing){
+				out.writeInt(face);
+			}
+			out.writeInt(rules.getPoints());
+			out.writeBoolean(rules.isAllPoints());
+			out.writeBoolean(rules.isPointWin());
+			out.writeInt(rules.getRounds());
+			out.writeBoolean(rules.isFaceScore());
+			out.writeInt(game.getPoint());
+			out.writeInt(game.getLastRoll());
+			out.writeInt(game.getPointsSet());
+			out.writeInt(game.getPointsHit());
+			out.writeInt(game.getRounds());
+			out.writeInt(game.getScore());
+			out.writeBoolean(game.isOver());
+			int marked = game.getMarked(); //every point set marks one face
+			out.writeInt(marked);
+			for(int i = 0; i < marked; i++){
+				int face = game.getMarkedFace(i);
+				out.writeInt(face);
+				out.writeByte(game.getFace(face));
+			}
+			Object rand = game.getRandom();
+			out.writeLong((rand instanceof RestorableRandom) ? ((RestorableRandom) rand).getState() : -1L);
+		}
+	}
+
+	/**
+	 * Rebuilds a game from toBytes, restoring rand to its saved state
+	 *
+	 * @throws IOException if the bytes aren't a snapshot this version can read
+	 */
+	public static DieGame fromBytes(byte[] bytes, RestorableRandom rand) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		if((in.readInt() != MAGIC) || (in.readInt() != VERSION)){
+			throw new IOException("Not a version " + VERSION + " saved game");
+		}
+		try {
+			int sides = in.readInt();
+			boolean loaded = in.readBoolean();
+			int loadFactor = in.readInt();
+			int loadedSide = in.readInt();
+			int diceCount = in.readInt();
+			int combine = in.readInt();
+			int losingCount = in.readInt();
+			if((losingCount < 0) || (losingCount > in.available() / 4)){ //counts are checked before anything is allocated for them
+				throw new IOException("Saved game is corrupt: " + losingCount + " losing faces");
+			}
+			int[] losing = new int[losingCount];
+			for(int i = 0; i < losing.length; i++){
+				losing[i] = in.readInt();
+			}
+			GameRules rules = new GameRules(losing, in.readInt(), in.readBoolean(), in.readBoolean(), in.readInt(), in.readBoolean());
+			DieGame game = (diceCount == 0) ? new DieGame(sides, loaded, loadFactor, loadedSide, rand, rules)
+					: new DieGame(new Dice(diceCount, sides, Dice.Combine.values()[combine]), rand, rules);
+			int point = in.readInt();
+			int lastRoll = in.readInt();
+			int pointsSet = in.readInt();
+			int pointsHit = in.readInt();
+			int rounds = in.readInt();
+			int score = in.readInt();
+			boolean over = in.readBoolean();
+			int marked = in.readInt();
+			if((marked < 0) || (marked > rules.getPoints()) || (marked > in.available() / 5)){
+				throw new IOException("Saved game is corrupt: " + marked + " points marked");
+			}
+			int[] faces = new int[marked];
+			byte[] marks = new byte[marked];
+			for(int i = 0; i < marked; i++){
+				faces[i] = in.readInt();
+				marks[i] = in.readByte();
+				if((marks[i] != GameRules.POINT) && (marks[i] != GameRules.HIT)){
+					throw new IOException("Saved game is corrupt: face " + faces[i] + " marked " + marks[i]);
+				}
+			}
+			game.restore(faces, marks, point, lastRoll, pointsSet, pointsHit, rounds, score, over);
+			long state = in.readLong();
+			if(state != -1L){
+				rand.setState(state);
+			}
+			return game;
+		} catch ( RuntimeException re ) {
+			throw new IOException("Saved game is corrupt: " + re, re);
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package application;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Counts the garbage collector's pauses as they happen, for the diagnostic
+ * overlay.  Collectors that run alongside the application (G1's concurrent
+ * cycle, ZGC's cycles) are left out, only stop-the-world pauses are counted.
+ */
+
+public class GcTelemetry implements NotificationListener {
+
+	private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean(); //looked up once, the lookup allocates
+
+	private final AtomicLong pauses = new AtomicLong();
+	private final AtomicLong totalMillis = new AtomicLong();
+	private final AtomicLong maxMillis = new AtomicLong();
+	private volatile long lastMillis;
+
+	/**
+	 * Starts listening to every collector that reports its pauses
+	 */
+	public GcTelemetry() {
+		for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()){
+			String name = collector.getName();
+			if((collector instanceof NotificationEmitter) && !name.contains("Concurrent") && !name.contains("Cycles")){
+				((NotificationEmitter) collector).addNotificationListener(this, null, null);
+			}
+		}
+	}
+
+	@Override
+	public void handleNotification(Notification notification, Object handback) {
+		if(!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())){
+			return;
+		}
+		GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+		long millis = info.getGcInfo().getDuration();
+		pauses.incrementAndGet();
+		totalMillis.addAndGet(millis);
+		lastMillis = millis;
+		long max;
+		while(millis > (max = maxMillis.get())){
+			if(maxMillis.compareAndSet(max, millis)){
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Bytes a thread has allocated so far, or 0 if the JVM can't tell
+	 */
+	public static long allocatedBytes(Thread thread) {
+		if(threads instanceof com.sun.management.ThreadMXBean){
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(thread.getId());
+		}
+		return 0;
+	}
+
+	public long getPauses() {
+		return pauses.get();
+	}
+
+	public long getTotalMillis() {
+		return totalMillis.get();
+	}
+
+	public long getMaxMillis() {
+		return maxMillis.get();
+	}
+
+	public long getLastMillis() {
+		return lastMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "GC " + getPauses() + " pauses, " + getTotalMillis() + " ms total, " + getMaxMillis() + " ms max, "
+				+ getLastMillis() + " ms last";
+	}
+}
@@ -0,0 +1,37 @@
+package application;
+
+import java.util.Arrays;
+
+import javafx.application.Application;
+
+/**
+ * Starts one of the tools that drive JavaFX without a display, on the Monocle
+ * headless platform with the software pipeline.  Those properties are only
+ * read when the toolkit starts, and java starts the toolkit before main when
+ * the main class is an Application, so they are set here, in a class that
+ * isn't one, before launching the tool:
+ *
+ *     java -cp <classpath> application.HeadlessLauncher LoadTestHarness [cycles]
+ *
+ * The first argument names the Application in this package, the rest are
+ * passed on to it.  Needs the openjfx-monocle jar matching the JavaFX version
+ * on the classpath.
+ */
+
+public class HeadlessLauncher {
+
+	public static void main(String[] args) throws ClassNotFoundException {
+		if(args.length < 1){
+			System.err.println("Usage: HeadlessLauncher application [arguments]");
+			System.exit(2);
+		}
+		Class<? extends Application> application = Class.forName(HeadlessLauncher.class.getPackage().getName() + "." + args[0])
+				.asSubclass(Application.class);
+		System.setProperty("glass.platform", "Monocle");
+		System.setProperty("monocle.platform", "Headless");
+		System.setProperty("prism.order", "sw");
+		System.setProperty("prism.text", "t2k");
+		System.setProperty("java.awt.headless", "true");
+		Application.launch(application, Arrays.copyOfRange(args, 1, args.length));
+	}
+}
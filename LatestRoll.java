@@ -0,0 +1,69 @@
+package application;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Hands rolls from the roll worker to the thread that shows them, keeping
+ * only the newest.  offer() copies a roll into a reused Outcome and posts a
+ * show through the hand-off only if none is already waiting, so a burst of
+ * rolls costs one post and one image swap, and nothing is allocated but what
+ * the hand-off itself allocates per post.  Main hands off with
+ * Platform.runLater, RollAllocationCheck with a stand-in that runs the show
+ * straight away.
+ */
+
+public class LatestRoll {
+
+	private final DieGame.Outcome latest = new DieGame.Outcome(); //newest roll not shown yet, guarded by itself
+	private final DieGame.Outcome shown = new DieGame.Outcome(); //the showing thread's copy of it
+	private final AtomicBoolean pending = new AtomicBoolean(); //show is already waiting to run
+	private final Executor handOff;
+	private final Runnable show;
+	private volatile long postedAt; //when show was last posted, for the profiler
+	private long posts; //times show was posted, only written by the worker
+
+	/**
+	 * @param handOff runs a show on the thread that shows rolls
+	 * @param target shows a roll, on that thread, the Outcome is reused
+	 */
+	public LatestRoll(Executor handOff, final Consumer<DieGame.Outcome> target) {
+		this.handOff = handOff;
+		this.show = new Runnable() {
+			@Override
+			public void run() {
+				pending.set(false); //cleared first, so a roll arriving from here on posts again
+				synchronized(latest){
+					shown.copyFrom(latest);
+				}
+				target.accept(shown);
+			}
+		};
+	}
+
+	/**
+	 * Leaves the roll to be shown, replacing any roll not shown yet
+	 */
+	public void offer(DieGame.Outcome outcome) {
+		synchronized(latest){
+			latest.copyFrom(outcome);
+		}
+		if(pending.compareAndSet(false, true)){
+			postedAt = System.nanoTime();
+			posts++;
+			handOff.execute(show);
+		}
+	}
+
+	/**
+	 * When the show running now was posted, in System.nanoTime
+	 */
+	public long getPostedAt() {
+		return postedAt;
+	}
+
+	public long getPosts() {
+		return posts;
+	}
+}
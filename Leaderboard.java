@@ -0,0 +1,597 @@
+package application;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * Keeps the scores of every finished game across all players and sessions.
+ *
+ * Every game is appended to a file of fixed width records, so a finished game
+ * costs a single write no matter how long the history is.  Next to it is the
+ * index, the packed (score, record number) key of every game sorted best
+ * first, kept as a few sorted runs that each cover the games of one stretch of
+ * the record file, in files named <file>.idx.<first>-<count>:
+ *
+ *     int magic, int version, int first record, int count, long key for each game
+ *
+ * Keys of the latest games are kept in memory and written out as a new run
+ * every MERGE_EVERY games and on close, 8 KB however long the history is.  A
+ * background thread merges two neighbouring runs whenever the older one is no
+ * bigger than the newer one (in powers of two of MERGE_EVERY), so there are
+ * about log2(games / MERGE_EVERY) runs and each key is rewritten about that
+ * many times in its life: recording a game costs O(log n) spread over the
+ * games, and never waits for a merge.
+ *
+ * Opening the board reads only the first K keys of each run and their
+ * records, which hold the best K games, plus any games played after the last
+ * run was written (after a crash, say), never the whole history.  A bounded
+ * min-heap of the best K games is all the board needs to show, and a page of
+ * the full history is a binary search of each run and one read per game on
+ * the page.  Runs a finished merge has replaced are dropped, and games no run
+ * covers are indexed again from the records.
+ *
+ *     java -cp <classpath> application.LeaderboardCheck [games]
+ *
+ * checks all of it against sorting every game.
+ */
+
+public class Leaderboard {
+
+	public static final int NAME_BYTES = 16; //player names are truncated to fit the record
+	public static final int RECORD_BYTES = 4 + 4 + 8 + NAME_BYTES; //score, sides, time, name
+
+	private static final int RUN_MAGIC = 0x44474C52; //"DGLR"
+	private static final int RUN_VERSION = 1;
+	private static final int RUN_HEADER = 16;
+	static final int MERGE_EVERY = 1024; //games kept in memory before they are written out as a run
+
+	private final RandomAccessFile file; //the fixed width record file holding every game
+	private final File storage; //its name, the runs are named after it
+	private final int capacity; //how many games the hot top-K view keeps
+	private final PriorityQueue<Entry> topGames = new PriorityQueue<>(); //min-heap, the worst of the best K is at the head
+	private final List<Run> runs = new ArrayList<>(); //the index, oldest games first, together covering the first covered games
+	private int covered; //games whose keys are in a run
+	private final NavigableSet<Long> recent = new TreeSet<>(); //keys of the games after those, not written out yet
+	private int records; //number of games in the file
+	private final Thread merger; //merges runs in the background
+	private volatile boolean closing; //stops the merger, also looked at during a merge
+
+	/**
+	 * One finished game as it is shown on the board
+	 */
+	public static class Entry implements Comparable<Entry> {
+		public final String player;
+		public final int score;
+		public final int sides;
+		public final long time;
+		final int record; //position of the game in the file, breaks ties in favour of the older game
+
+		Entry(String player, int score, int sides, long time, int record) {
+			this.player = player;
+			this.score = score;
+			this.sides = sides;
+			this.time = time;
+			this.record = record;
+		}
+
+		//natural order is worst first, so the heap head is the game to evict
+		@Override
+		public int compareTo(Entry other) {
+			if(score != other.score){
+				return Integer.compare(score, other.score);
+			}
+			return Integer.compare(other.record, record);
+		}
+
+		@Override
+		public String toString() {
+			return player + " - " + score + " (d" + sides + ")";
+		}
+	}
+
+	/**
+	 * One sorted run of the index, the keys of count games from record first on.
+	 * A run file is never changed once written, only replaced by a merge.
+	 */
+	private static class Run {
+		final File file;
+		final RandomAccessFile in;
+		final int first;
+		final int count;
+
+		Run(File file) throws IOException {
+			this.file = file;
+			this.in = new RandomAccessFile(file, "r");
+			try {
+				if((in.length() < RUN_HEADER) || (in.readInt() != RUN_MAGIC) || (in.readInt() != RUN_VERSION)){
+					throw new IOException("not a version " + RUN_VERSION + " index run");
+				}
+				first = in.readInt();
+				count = in.readInt();
+				if((first < 0) || (count <= 0) || (in.length() != RUN_HEADER + 8L * count)){
+					throw new IOException("index run is cut short");
+				}
+			} catch ( IOException ioe ) {
+				in.close();
+				throw ioe;
+			}
+		}
+
+		//the i-th key of the run
+		long keyAt(int i) throws IOException {
+			in.seek(RUN_HEADER + 8L * i);
+			return in.readLong();
+		}
+
+		//the position of the first key after from
+		int after(long from) throws IOException {
+			int low = 0;
+			int high = count;
+			while(low < high){
+				int middle = (low + high) >>> 1;
+				if(keyAt(middle) <= from){
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+		//runs in the same power of two of MERGE_EVERY games are merged
+		int level() {
+			return 31 - Integer.numberOfLeadingZeros(Math.max(1, count / MERGE_EVERY));
+		}
+	}
+
+	/**
+	 * Opens the leaderboard stored in the given file, creating it if needed.
+	 * Only the best games and the games no run covers yet are read.
+	 *
+	 * @throws IllegalArgumentException if capacity is less than 1
+	 * @throws IOException if the file cannot be opened or read
+	 */
+	public Leaderboard(File storage, int capacity) throws IOException {
+		if(capacity < 1){
+			throw new IllegalArgumentException("Error: leaderboard capacity must be at least 1");
+		}
+		File parent = storage.getAbsoluteFile().getParentFile();
+		if(parent != null){
+			parent.mkdirs();
+		}
+		this.capacity = capacity;
+		this.storage = storage;
+		this.file = new RandomAccessFile(storage, "rw");
+		records = (int) (file.length() / RECORD_BYTES); //a torn last record from a crash is ignored
+		openRuns();
+		byte[] buffer = new byte[RECORD_BYTES * 512];
+		for(Run run : runs){
+			for(int i = 0; i < Math.min(capacity, run.count); i++){ //the best of a run's games are its first keys
+				offer(read((int) run.keyAt(i), buffer));
+			}
+		}
+		long[] tail = new long[records - covered];
+		file.seek((long) covered * RECORD_BYTES);
+		for(int first = covered; first < records; first += 512){
+			int count = Math.min(512, records - first);
+			file.readFully(buffer, 0, count * RECORD_BYTES);
+			for(int i = 0; i < count; i++){
+				Entry entry = decode(buffer, i * RECORD_BYTES, first + i);
+				tail[first + i - covered] = key(entry.score, entry.record);
+				offer(entry);
+			}
+		}
+		if(tail.length >= MERGE_EVERY){ //a lost index is written straight away, so the next start doesn't read everything again
+			Arrays.sort(tail);
+			writeRun(tail);
+		} else {
+			for(long key : tail){
+				recent.add(key);
+			}
+		}
+		merger = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				mergeRuns();
+			}
+		}, "leaderboard-merger");
+		merger.setDaemon(true);
+		merger.start();
+	}
+
+	/**
+	 * Records a finished game, appending it to the file and updating both views
+	 *
+	 * @throws IOException if the record cannot be written
+	 */
+	public synchronized Entry record(String player, int score, int sides) throws IOException {
+		Entry entry = new Entry(truncate(player), score, sides, System.currentTimeMillis(), records);
+		byte[] buffer = new byte[RECORD_BYTES];
+		encode(entry, buffer);
+		file.seek((long) records * RECORD_BYTES);
+		file.write(buffer);
+		records++;
+		recent.add(key(score, entry.record));
+		offer(entry);
+		if(recent.size() >= MERGE_EVERY){
+			flush();
+			notifyAll(); //the merger may have runs to merge now
+		}
+		return entry;
+	}
+
+	/**
+	 * The best games, best first, served from the top-K heap without touching the file
+	 */
+	public synchronized List<Entry> top() {
+		List<Entry> best = new ArrayList<>(topGames);
+		Collections.sort(best, Collections.reverseOrder());
+		return best;
+	}
+
+	/**
+	 * Reads one page of the full history, best first.  Pass null to get the first
+	 * page and the last entry of the previous page to get the next one; only the
+	 * index entries and records on the page are read from the files.
+	 *
+	 * @throws IOException if the records cannot be read
+	 */
+	public synchronized List<Entry> page(Entry after, int size) throws IOException {
+		int[] next = new int[runs.size()]; //the next key of each run
+		long[] heads = new long[runs.size()]; //and that key
+		NavigableSet<Long> rest = recent;
+		if(after != null){
+			long from = key(after.score, after.record);
+			rest = recent.tailSet(from, false);
+			for(int i = 0; i < next.length; i++){
+				next[i] = runs.get(i).after(from);
+			}
+		}
+		for(int i = 0; i < next.length; i++){
+			if(next[i] < runs.get(i).count){
+				heads[i] = runs.get(i).keyAt(next[i]);
+			}
+		}
+		List<Entry> page = new ArrayList<>(size);
+		byte[] buffer = new byte[RECORD_BYTES];
+		Iterator<Long> fresh = rest.iterator();
+		Long freshKey = fresh.hasNext() ? fresh.next() : null;
+		while(page.size() < size){
+			int best = -1; //the run with the best next key, there are only a few
+			for(int i = 0; i < next.length; i++){
+				if((next[i] < runs.get(i).count) && ((best < 0) || (heads[i] < heads[best]))){
+					best = i;
+				}
+			}
+			long key;
+			if((best >= 0) && ((freshKey == null) || (heads[best] < freshKey))){
+				key = heads[best];
+				if(++next[best] < runs.get(best).count){
+					heads[best] = runs.get(best).keyAt(next[best]);
+				}
+			} else if(freshKey != null){
+				key = freshKey;
+				freshKey = fresh.hasNext() ? fresh.next() : null;
+			} else {
+				break;
+			}
+			page.add(read((int) key, buffer));
+		}
+		return page;
+	}
+
+	/**
+	 * Total number of games ever recorded
+	 */
+	public synchronized int size() {
+		return records;
+	}
+
+	/**
+	 * Number of runs the index is in, for checking that merging keeps up
+	 */
+	public synchronized int getRuns() {
+		return runs.size();
+	}
+
+	/**
+	 * Stops the merger, writes out the games not in a run yet and closes the
+	 * files.  A merge under way is given up and done again on the next open.
+	 */
+	public void close() throws IOException {
+		synchronized(this){
+			closing = true;
+			notifyAll();
+		}
+		try {
+			merger.join();
+		} catch ( InterruptedException ie ) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized(this){
+			try {
+				if(!recent.isEmpty()){
+					flush();
+				}
+			} finally {
+				for(Run run : runs){
+					run.in.close();
+				}
+				file.close();
+			}
+		}
+	}
+
+	//opens the runs that cover the records from the first on, deleting any a merge replaced or that don't fit
+	private void openRuns() {
+		new File(storage.getPath() + ".idx").delete(); //the single index file of version 1 boards, replaced by runs
+		File parent = storage.getAbsoluteFile().getParentFile();
+		File[] files = (parent == null) ? null : parent.listFiles();
+		String prefix = storage.getName() + ".idx.";
+		List<Run> found = new ArrayList<>();
+		boolean dropped = false;
+		for(File candidate : (files == null) ? new File[0] : files){
+			if(!candidate.getName().startsWith(prefix)){
+				continue;
+			}
+			if(candidate.getName().endsWith(".tmp")){
+				candidate.delete(); //a run whose writing was cut short
+				continue;
+			}
+			try {
+				found.add(new Run(candidate));
+			} catch ( IOException ioe ) {
+				System.err.println("Leaderboard index " + candidate + " is unusable, reindexing its games: " + ioe.getMessage());
+				candidate.delete();
+				dropped = true;
+			}
+		}
+		Collections.sort(found, new Comparator<Run>() {
+			@Override
+			public int compare(Run a, Run b) {
+				return (a.first != b.first) ? Integer.compare(a.first, b.first) : Integer.compare(b.count, a.count);
+			}
+		});
+		covered = 0;
+		for(Run run : found){
+			if((run.first == covered) && (run.count <= records - covered)){
+				runs.add(run);
+				covered += run.count;
+				continue;
+			}
+			if(run.first > covered){
+				dropped = true; //a gap, the games after it are reindexed
+			}
+			try {
+				run.in.close(); //inside a bigger run a merge wrote, or past a gap or the records
+			} catch ( IOException ioe ) {
+				//deleted all the same
+			}
+			run.file.delete();
+		}
+		if(dropped){
+			System.err.println("Leaderboard index " + storage + ".idx doesn't match the scores, reindexing from game " + covered);
+		}
+	}
+
+	//the background merger, merges the runs that are due until the board is closed
+	private void mergeRuns() {
+		while(true){
+			Run older;
+			Run newer;
+			synchronized(this){
+				int due;
+				while(((due = mergeDue()) < 0) && !closing){
+					try {
+						wait();
+					} catch ( InterruptedException ie ) {
+						return;
+					}
+				}
+				if(closing){
+					return;
+				}
+				older = runs.get(due);
+				newer = runs.get(due + 1);
+			}
+			Run merged;
+			try {
+				merged = merge(older, newer);
+			} catch ( IOException ioe ) {
+				System.err.println("Could not merge the leaderboard index, leaving it in more runs: " + ioe.getMessage());
+				return;
+			}
+			if(merged == null){
+				return; //closing
+			}
+			synchronized(this){
+				int at = runs.indexOf(older); //only ever appended to meanwhile
+				runs.set(at, merged);
+				runs.remove(at + 1);
+				try {
+					older.in.close();
+					newer.in.close();
+				} catch ( IOException ioe ) {
+					//deleted all the same
+				}
+				older.file.delete();
+				newer.file.delete();
+			}
+		}
+	}
+
+	//the position of the older run of the newest two neighbours due for merging, -1 if none are
+	private int mergeDue() {
+		for(int i = runs.size() - 2; i >= 0; i--){
+			if(runs.get(i).level() <= runs.get(i + 1).level()){
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	//merges two neighbouring runs into a new run file, null if the board started closing first
+	private Run merge(Run older, Run newer) throws IOException {
+		File target = runFile(older.first, older.count + newer.count);
+		File temp = new File(target.getPath() + ".tmp");
+		boolean done = false;
+		try {
+			try (DataInputStream a = keys(older); DataInputStream b = keys(newer);
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024))) {
+				out.writeInt(RUN_MAGIC);
+				out.writeInt(RUN_VERSION);
+				out.writeInt(older.first);
+				out.writeInt(older.count + newer.count);
+				int leftA = older.count;
+				int leftB = newer.count;
+				long keyA = a.readLong();
+				long keyB = b.readLong();
+				for(int written = 0; (leftA > 0) || (leftB > 0); written++){
+					if(((written & 0xFFFF) == 0) && closing){
+						return null;
+					}
+					if((leftB == 0) || ((leftA > 0) && (keyA < keyB))){
+						out.writeLong(keyA);
+						if(--leftA > 0){
+							keyA = a.readLong();
+						}
+					} else {
+						out.writeLong(keyB);
+						if(--leftB > 0){
+							keyB = b.readLong();
+						}
+					}
+				}
+			}
+			Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			done = true;
+			return new Run(target);
+		} finally {
+			if(!done){
+				temp.delete();
+			}
+		}
+	}
+
+	//the keys of a run read straight through, apart from the reads of the board
+	private static DataInputStream keys(Run run) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(run.file), 64 * 1024));
+		in.skipBytes(RUN_HEADER);
+		return in;
+	}
+
+	//writes the recent keys out as a new run after the others
+	private void flush() throws IOException {
+		long[] keys = new long[recent.size()];
+		int i = 0;
+		for(long key : recent){
+			keys[i++] = key;
+		}
+		writeRun(keys);
+		recent.clear();
+	}
+
+	//writes the sorted keys of the games after those covered as a new run, replacing any file of that name atomically
+	private void writeRun(long[] keys) throws IOException {
+		File target = runFile(covered, keys.length);
+		File temp = new File(target.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024))) {
+			out.writeInt(RUN_MAGIC);
+			out.writeInt(RUN_VERSION);
+			out.writeInt(covered);
+			out.writeInt(keys.length);
+			for(long key : keys){
+				out.writeLong(key);
+			}
+		}
+		Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		runs.add(new Run(target));
+		covered += keys.length;
+	}
+
+	private File runFile(int first, int count) {
+		return new File(storage.getPath() + ".idx." + first + "-" + count);
+	}
+
+	//reads one game from the record file
+	private Entry read(int record, byte[] buffer) throws IOException {
+		file.seek((long) record * RECORD_BYTES);
+		file.readFully(buffer, 0, RECORD_BYTES);
+		return decode(buffer, 0, record);
+	}
+
+	//keeps only the best capacity games in the heap
+	private void offer(Entry entry) {
+		if(topGames.size() < capacity){
+			topGames.add(entry);
+		} else if(entry.compareTo(topGames.peek()) > 0){
+			topGames.poll();
+			topGames.add(entry);
+		}
+	}
+
+	//higher scores sort first, equal scores keep the order they were played in, the record is the low half
+	private static long key(int score, int record) {
+		return ((long) (Integer.MAX_VALUE - score) << 32) | (record & 0xFFFFFFFFL);
+	}
+
+	private static String truncate(String player) {
+		byte[] name = player.getBytes(StandardCharsets.UTF_8);
+		if(name.length <= NAME_BYTES){
+			return player;
+		}
+		return new String(name, 0, NAME_BYTES, StandardCharsets.UTF_8).replace("\uFFFD", "");
+	}
+
+	private static void encode(Entry entry, byte[] buffer) {
+		putInt(buffer, 0, entry.score);
+		putInt(buffer, 4, entry.sides);
+		putInt(buffer, 8, (int) (entry.time >>> 32));
+		putInt(buffer, 12, (int) entry.time);
+		byte[] name = entry.player.getBytes(StandardCharsets.UTF_8);
+		System.arraycopy(name, 0, buffer, 16, Math.min(name.length, NAME_BYTES));
+	}
+
+	private static Entry decode(byte[] buffer, int offset, int record) {
+		int score = getInt(buffer, offset);
+		int sides = getInt(buffer, offset + 4);
+		long time = ((long) getInt(buffer, offset + 8) << 32) | (getInt(buffer, offset + 12) & 0xFFFFFFFFL);
+		int length = 0;
+		while((length < NAME_BYTES) && (buffer[offset + 16 + length] != 0)){
+			length++;
+		}
+		String player = new String(buffer, offset + 16, length, StandardCharsets.UTF_8);
+		return new Entry(player, score, sides, time, record);
+	}
+
+	private static void putInt(byte[] buffer, int offset, int value) {
+		buffer[offset] = (byte) (value >>> 24);
+		buffer[offset + 1] = (byte) (value >>> 16);
+		buffer[offset + 2] = (byte) (value >>> 8);
+		buffer[offset + 3] = (byte) value;
+	}
+
+	private static int getInt(byte[] buffer, int offset) {
+		return ((buffer[offset] & 0xFF) << 24) | ((buffer[offset + 1] & 0xFF) << 16)
+				| ((buffer[offset + 2] & 0xFF) << 8) | (buffer[offset + 3] & 0xFF);
+	}
+}
@@ -0,0 +1,187 @@
+package application;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the Leaderboard's index against sorting every game: records games
+ * with random scores, and after each step below reads the whole history page
+ * by page and the top games, and compares them with the games sorted by hand.
+ * The steps are the board while it is being played, a copy of its files taken
+ * without closing it (what a crash leaves), the board reopened after close, a
+ * run missing, a run cut short, and a bigger top list.  No display is needed:
+ *
+ *     java -cp <classpath> application.LeaderboardCheck [games]
+ *
+ * games defaults to 200,000.  Also prints how long recording took and the
+ * slowest single record, and exits with 1 if anything doesn't match or a
+ * record took longer than check.maxRecordMillis (default 100), since a record
+ * holds up the roll worker.
+ */
+
+public class LeaderboardCheck {
+
+	private static final int TOP = 10;
+	private static final int PAGE = 997; //pages that don't line up with the runs
+
+	private static int games;
+	private static int[] scores;
+	private static boolean passed = true;
+
+	public static void main(String[] args) throws Exception {
+		games = (args.length > 0) ? Integer.parseInt(args[0]) : 200000;
+		double limit = Double.parseDouble(System.getProperty("check.maxRecordMillis", "100"));
+		File dir = Files.createTempDirectory("diegame-check").toFile();
+		try {
+			File storage = new File(dir, "board.dat");
+			Random rand = new Random(2016);
+			scores = new int[games];
+			Leaderboard board = new Leaderboard(storage, TOP);
+			long slowest = 0;
+			long began = System.nanoTime();
+			int crashAt = games - Leaderboard.MERGE_EVERY / 2; //some games not in a run yet
+			for(int i = 0; i < games; i++){
+				scores[i] = rand.nextInt(1000);
+				long before = System.nanoTime();
+				board.record("player" + (i % 7), scores[i], 3 + rand.nextInt(48));
+				slowest = Math.max(slowest, System.nanoTime() - before);
+				if(i == games / 2){
+					verify("while playing", board, i + 1);
+				}
+				if(i == crashAt){
+					File crashed = new File(dir, "crashed");
+					crashed.mkdir();
+					copy(dir, crashed); //the board is still open, as after a crash
+					Leaderboard copy = new Leaderboard(new File(crashed, "board.dat"), TOP);
+					verify("after a crash", copy, i + 1);
+					copy.close();
+				}
+			}
+			double seconds = (System.nanoTime() - began) / 1e9;
+			verify("played", board, games);
+			System.out.printf("%d games recorded in %.2f s, slowest record %.3f ms, %d runs%n", games, seconds,
+					slowest / 1e6, board.getRuns());
+			board.close();
+
+			board = new Leaderboard(storage, TOP);
+			verify("reopened", board, games);
+			board.close();
+
+			File[] runs = runFiles(dir); //two or more after a few thousand games, one after any reindexing
+			Arrays.sort(runs);
+			runs[runs.length / 2].delete();
+			board = new Leaderboard(storage, TOP);
+			verify("run missing", board, games);
+			board.close();
+
+			runs = runFiles(dir);
+			Arrays.sort(runs);
+			try (RandomAccessFile cut = new RandomAccessFile(runs[runs.length - 1], "rw")) {
+				cut.setLength(cut.length() - 8);
+			}
+			board = new Leaderboard(storage, TOP);
+			verify("run cut short", board, games);
+			board.close();
+
+			board = new Leaderboard(storage, TOP * 5);
+			verify("bigger top list", board, games);
+			board.close();
+
+			if(slowest / 1e6 > limit){
+				System.err.printf("FAIL: slowest record %.3f ms is over %.3f ms%n", slowest / 1e6, limit);
+				passed = false;
+			}
+		} finally {
+			delete(dir);
+		}
+		System.out.println(passed ? "PASS" : "FAIL");
+		System.exit(passed ? 0 : 1);
+	}
+
+	//compares the board's pages and top list with the first count games sorted by hand
+	private static void verify(String step, Leaderboard board, int count) throws IOException {
+		long[] expected = new long[count];
+		for(int i = 0; i < count; i++){
+			expected[i] = ((long) (Integer.MAX_VALUE - scores[i]) << 32) | i; //best first, then oldest first
+		}
+		Arrays.sort(expected);
+		int seen = 0;
+		String wrong = null;
+		Leaderboard.Entry last = null;
+		while(wrong == null){
+			List<Leaderboard.Entry> page = board.page(last, PAGE);
+			if(page.isEmpty()){
+				break;
+			}
+			for(Leaderboard.Entry entry : page){
+				if(seen >= count){
+					wrong = "more than " + count + " games";
+					break;
+				}
+				int record = (int) expected[seen];
+				if((entry.record != record) || (entry.score != scores[record])){
+					wrong = "game " + seen + " is record " + entry.record + " scoring " + entry.score + ", expected record "
+							+ record + " scoring " + scores[record];
+					break;
+				}
+				seen++;
+			}
+			last = page.get(page.size() - 1);
+		}
+		if((wrong == null) && (seen != count)){
+			wrong = seen + " games paged, expected " + count;
+		}
+		List<Leaderboard.Entry> top = board.top();
+		for(int i = 0; (wrong == null) && (i < top.size()); i++){
+			if(top.get(i).record != (int) expected[i]){
+				wrong = "top game " + i + " is record " + top.get(i).record + ", expected " + (int) expected[i];
+			}
+		}
+		if(wrong != null){
+			System.err.println("FAIL " + step + ": " + wrong);
+			passed = false;
+		} else {
+			System.out.println("ok " + step + ": " + count + " games, " + board.getRuns() + " runs");
+		}
+	}
+
+	private static File[] runFiles(File dir) {
+		return dir.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File parent, String name) {
+				return name.startsWith("board.dat.idx.") && !name.endsWith(".tmp");
+			}
+		});
+	}
+
+	//copies the board's files, leaving out directories and anything half written
+	private static void copy(File from, File to) throws IOException {
+		for(File file : from.listFiles()){
+			if(file.isFile() && !file.getName().endsWith(".tmp")){
+				try {
+					Files.copy(file.toPath(), new File(to, file.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+				} catch ( NoSuchFileException nsfe ) {
+					//replaced by a merge meanwhile, the merged run is copied instead or the games are reindexed
+				}
+			}
+		}
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if(children != null){
+			for(File child : children){
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,222 @@
+package application;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+import javafx.stage.Stage;
+
+/**
+ * Drives the real game through thousands of Start, roll, win/lose cycles with
+ * no display, and fails if it gets slower or starts holding on to memory.  It
+ * runs Main's own start(Stage), skipping only the Start dialogs, and clicks
+ * the real roll button, so every roll goes through the RollDispatcher, the
+ * image loading and the JavaFX thread just as a player's would.
+ *
+ * Run it through HeadlessLauncher, which starts it on the Monocle headless
+ * platform, so no display is needed:
+ *
+ *     java -cp <classpath> application.HeadlessLauncher LoadTestHarness [cycles]
+ *
+ * The latency of a roll is the time from clicking the roll button to the new
+ * face being shown.  The thresholds can be changed with system properties:
+ * harness.p50Millis (default 5), harness.p99Millis (default 50) and
+ * harness.retainedMB (default 16), the heap still in use after a full GC at
+ * the end compared to after the warm-up games.  Exits with 1 if any of them
+ * are exceeded.
+ */
+
+public class LoadTestHarness extends Main {
+
+	private static final int WARMUP = 200; //games played before the heap baseline is taken
+
+	private int cycles = 2000; //games to play, not counting the warm-up
+
+	private long[] latencies = new long[1024]; //nanoseconds from click to face shown, for every measured roll
+	private int rolls; //measured rolls so far
+	private boolean measuring; //false during the warm-up
+
+	@Override
+	public void init() throws IOException {
+		if(!getParameters().getRaw().isEmpty()){
+			cycles = Integer.parseInt(getParameters().getRaw().get(0));
+		}
+		//the board, its index runs, the save and anything half written all go in one directory, removed on exit
+		final File scratch = Files.createTempDirectory("diegame-harness").toFile();
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				delete(scratch);
+			}
+		}, "harness-cleanup"));
+		if(System.getProperty("diegame.leaderboard") == null){
+			//thousands of games mustn't land on the player's board
+			System.setProperty("diegame.leaderboard", new File(scratch, "leaderboard.dat").getPath());
+		}
+		if(System.getProperty("diegame.save") == null){
+			//nor may they replace the player's saved game
+			System.setProperty("diegame.save", new File(scratch, "save.bin").getPath());
+		}
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if(children != null){
+			for(File child : children){
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	@Override
+	public void start(Stage primaryStage) {
+		super.start(primaryStage);
+		Thread driver = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				int status = 1;
+				try {
+					status = drive() ? 0 : 1;
+				} catch ( Exception e ) {
+					e.printStackTrace(System.err);
+				} finally {
+					Platform.exit();
+					System.exit(status);
+				}
+			}
+		}, "load-test-driver");
+		driver.setDaemon(true);
+		driver.start();
+	}
+
+	//plays every game, then checks the results against the thresholds
+	private boolean drive() throws InterruptedException {
+		Random configs = new Random(2016);
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		for(int i = 0; i < WARMUP; i++){
+			play(configs);
+		}
+		long baseline = usedAfterGC(memory);
+		measuring = true;
+		long began = System.nanoTime();
+		for(int i = 0; i < cycles; i++){
+			play(configs);
+		}
+		long elapsed = System.nanoTime() - began;
+		long retained = usedAfterGC(memory) - baseline;
+
+		Arrays.sort(latencies, 0, rolls);
+		double p50 = percentile(latencies, rolls, 0.50);
+		double p99 = percentile(latencies, rolls, 0.99);
+		double max = (rolls > 0) ? latencies[rolls - 1] / 1e6 : 0;
+		double p50Limit = Double.parseDouble(System.getProperty("harness.p50Millis", "5"));
+		double p99Limit = Double.parseDouble(System.getProperty("harness.p99Millis", "50"));
+		double retainedLimit = Double.parseDouble(System.getProperty("harness.retainedMB", "16"));
+		double retainedMB = retained / (1024.0 * 1024.0);
+
+		System.out.printf("%d games, %d rolls in %.1f s%n", cycles, rolls, elapsed / 1e9);
+		System.out.printf("roll latency p50 %.3f ms, p99 %.3f ms, max %.3f ms%n", p50, p99, max);
+		System.out.printf("heap retained after warm-up %.2f MB%n", retainedMB);
+		boolean passed = true;
+		if(p50 > p50Limit){
+			System.err.printf("FAIL: p50 %.3f ms is over %.3f ms%n", p50, p50Limit);
+			passed = false;
+		}
+		if(p99 > p99Limit){
+			System.err.printf("FAIL: p99 %.3f ms is over %.3f ms%n", p99, p99Limit);
+			passed = false;
+		}
+		if(retainedMB > retainedLimit){
+			System.err.printf("FAIL: %.2f MB retained is over %.2f MB%n", retainedMB, retainedLimit);
+			passed = false;
+		}
+		System.out.println(passed ? "PASS" : "FAIL");
+		return passed;
+	}
+
+	/*
+	 * Plays one game to the end with a random fair or loaded die, clicking roll
+	 * and waiting for each face to be shown before clicking again, so the
+	 * queue is always empty when roll is clicked and no click is coalesced
+	 */
+	private void play(Random configs) throws InterruptedException {
+		int sides = 3 + configs.nextInt(48);
+		boolean loaded = configs.nextBoolean();
+		final DieGame next = loaded ? new DieGame(sides, true, 1 + configs.nextInt(100), 1 + configs.nextInt(sides), rand)
+				: new DieGame(sides, rand);
+		onFxThread(new Runnable() {
+			@Override
+			public void run() {
+				newGame(next);
+			}
+		});
+		final DieGame.Outcome[] shown = new DieGame.Outcome[1];
+		do {
+			final CountDownLatch applied = new CountDownLatch(1);
+			rollListener = new Consumer<DieGame.Outcome>() {
+				@Override
+				public void accept(DieGame.Outcome outcome) {
+					shown[0] = outcome;
+					applied.countDown();
+				}
+			};
+			long clicked = System.nanoTime();
+			Platform.runLater(new Runnable() {
+				@Override
+				public void run() {
+					roll();
+				}
+			});
+			if(!applied.await(10, TimeUnit.SECONDS)){
+				throw new IllegalStateException("Roll was not shown within 10 s");
+			}
+			if(measuring){
+				if(rolls == latencies.length){
+					latencies = Arrays.copyOf(latencies, rolls * 2);
+				}
+				latencies[rolls++] = System.nanoTime() - clicked;
+			}
+		} while(!shown[0].isOver());
+	}
+
+	//runs the task on the JavaFX thread and waits for it
+	private static void onFxThread(Runnable task) throws InterruptedException {
+		final CountDownLatch done = new CountDownLatch(1);
+		Platform.runLater(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					task.run();
+				} finally {
+					done.countDown();
+				}
+			}
+		});
+		done.await();
+	}
+
+	private static long usedAfterGC(MemoryMXBean memory) throws InterruptedException {
+		for(int i = 0; i < 3; i++){
+			System.gc();
+			Thread.sleep(50);
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	private static double percentile(long[] sorted, int count, double p) {
+		if(count == 0){
+			return 0;
+		}
+		int index = (int) Math.ceil(p * count) - 1;
+		return sorted[Math.max(0, Math.min(count - 1, index))] / 1e6;
+	}
+}
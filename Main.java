@@ -2,10 +2,14 @@ package application;
 	
 import javafx.application.Application;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Optional;
-import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import javafx.application.Platform;
 import javafx.event.*;  // Contains EventHandler & ActionEvent
 import javafx.stage.*; // Contains Stage and StageStyle
@@ -13,10 +17,12 @@ import javafx.scene.*; // Contains Scene, Group, and Node
 import javafx.scene.control.*; // Contains Button
 import javafx.scene.image.*; // Contains ImageView & Image
 import javafx.scene.layout.*; // Contains subclasses of anchorPane
+import javafx.scene.text.*; // Contains Font
+import javafx.geometry.Pos;
 import javafx.util.Duration;
 import javafx.util.Pair;
+import javafx.animation.AnimationTimer;
 import javafx.animation.KeyFrame;
-import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
 
 /**
@@ -34,18 +40,67 @@ import javafx.animation.Timeline;
 public class Main extends Application {
 	
 	//STEP 0: INITIALIZE GLOBAL VARIABLES
-	private int dieTop; // the number at the top of the die
-	private int highestRoll; // the largest number you can roll, allowed to change 
-	final protected int lowestRoll = 1; // the lowest number you can roll, doesn't change
 	private int numberOfSides; //number of sides on die
-	protected static Random rand = new Random(); // the random generator for the die
+	protected static RestorableRandom rand = new RestorableRandom(); // the random generator for the die, saved with the game
 	private int loadFactor; //the percentage of rolling the loaded die side
 	private int loadedSide; //which side of the die will be weighted
-	private int rollValue; //the value that has been rolled
 	private String typeAnswer; //specifies whether or not the die is loaded/fair
-	private int point; //the first value rolled
-	private boolean btnClicked = false; //tests to see if rollDieButton has been clicked, so that the point value may be saved
-	private boolean firstTimeThrough = true; //used to know when to compare point value to future rolled die's	
+	private volatile DieGame game; //the game being played, replaced every time Start is clicked
+	private Leaderboard leaderboard; //the scores of every finished game, kept in the user's home directory
+	private RollDispatcher rolls; //rolls the die on a worker thread so clicks never wait on game logic or image loading
+	private GameSnapshot saves; //the game in progress, saved after every roll and resumed on the next start
+	private Profiler profiler; //times each phase of the game with -Ddiegame.profile=<file>, null otherwise
+	private AnimationTimer renderTimer; //counts the pulses after a face is swapped, only when profiling
+	private long swappedAt; //when the last face swap finished, for the profiler
+	private int pulsesSinceSwap; //pulses started since then
+	private volatile ResultExport export; //every roll and game, with -Ddiegame.export=<file>, written by the roll worker
+	private FaceCounts faceCounts; //faces rolled this session, for the diagnostics line, null without it, guarded by itself
+	private ImageView imageView; //shows the rules, the die and the winner/loser image
+	private DieCanvas dieCanvas; //draws them instead of imageView with -Ddiegame.render=canvas
+	private Label faceNumber; //shows a face without an image as its number, over imageView
+	private Button rollDieButton; //disabled once the game has been won or lost
+	private Timeline endTimeline; //shows the winner/loser image 2s after the last roll, stopped if a new game starts first
+	Consumer<DieGame.Outcome> rollListener; //told on the JavaFX thread after each roll is shown, used by LoadTestHarness
+	private final LatestRoll latestRoll = new LatestRoll(new Executor() { //newest roll, handed to the JavaFX thread
+		@Override
+		public void execute(Runnable show) {
+			Platform.runLater(show);
+		}
+	}, new Consumer<DieGame.Outcome>() {
+		@Override
+		public void accept(DieGame.Outcome outcome) {
+			if(profiler != null){
+				profiler.record(Profiler.Phase.DISPATCH, latestRoll.getPostedAt(), -1); //posted on the worker, what it allocated isn't ours
+			}
+			showRoll(outcome);
+		}
+	});
+	
+	/*
+	 * Every image is loaded once and shared from then on, out of the single sprite sheet 
+	 * DieSprites.bin.  Run with -Ddiegame.images=scaled to load each image separately, 
+	 * scaled down to the 300x400 size of the anchorPane if it is any bigger, or 
+	 * -Ddiegame.images=full to load each at full size.
+	 */
+	protected static final DieImages images = DieImages.create(300.0, 400.0, System.getProperty("diegame.images", "sheet"));
+	
+	/*
+	 * The house variant every new game is played by, read once from the file
+	 * named by -Ddiegame.rules, the standard game if there isn't one
+	 */
+	protected static final GameRules rules = loadRules(System.getProperty("diegame.rules"));
+	
+	/*
+	 * How the images are shown: "imageview" swaps the Image of an ImageView, 
+	 * "canvas" draws them onto one DieCanvas, set with -Ddiegame.render
+	 */
+	protected static final boolean canvasRendering = "canvas".equals(System.getProperty("diegame.render", "imageview"));
+	
+	/*
+	 * The most sides the Start dialog accepts, 50 (one image per face) unless
+	 * set with -Ddiegame.maxSides, faces past the images are shown as numbers
+	 */
+	protected static final int maxSides = Integer.getInteger("diegame.maxSides", DieImages.FACES);
 	
 	//keep everything in a try block
 	public void start(Stage primaryStage) {
@@ -101,7 +156,7 @@ public class Main extends Application {
 			 * for either a 1 or your point value to either
 			 * win or lose, its style is buttontheme
 			 */
-			Button rollDieButton = new Button();
+			rollDieButton = new Button();
 			rollDieButton.setText( "Click to roll" );
 			rollDieButton.getStyleClass().add("buttontheme");
 			
@@ -113,9 +168,84 @@ public class Main extends Application {
 			quitButton.getStyleClass().add("buttontheme");
 			
 			/*
-			 * The image viewer, the image will be loaded here 
+			 * leaderboardButton shows the best games played
+			 * by anyone on this machine, its style is buttontheme
+			 */
+			Button leaderboardButton = new Button();
+			leaderboardButton.setText( "Leaderboard" );
+			leaderboardButton.getStyleClass().add("buttontheme");
+			
+			/*
+			 * The leaderboard is opened once, if it cannot be opened
+			 * the game is still playable, it just won't be scored.
+			 * -Ddiegame.leaderboard=<file> keeps it somewhere else
+			 */
+			try {
+				String board = System.getProperty("diegame.leaderboard", 
+						new File(System.getProperty("user.home"), ".diegame/leaderboard.dat").getPath());
+				leaderboard = new Leaderboard(new File(board), 10);
+			} catch ( IOException ioe ) {
+				System.err.println("Leaderboard not available: " + ioe.getMessage());
+			}
+			
+			/*
+			 * The game in progress is saved here, -Ddiegame.save=<file> 
+			 * keeps it somewhere else
+			 */
+			saves = new GameSnapshot(new File(System.getProperty("diegame.save", 
+					new File(System.getProperty("user.home"), ".diegame/save.bin").getPath())));
+			
+			/*
+			 * With -Ddiegame.profile=<file> the time and allocation of every 
+			 * phase is recorded, see Profiler for summarizing it
+			 */
+			if(System.getProperty("diegame.profile") != null){
+				try {
+					profiler = new Profiler(new File(System.getProperty("diegame.profile")));
+				} catch ( IOException ioe ) {
+					System.err.println("Profiling not available: " + ioe.getMessage());
+				}
+			}
+			if(profiler != null){
+				renderTimer = new AnimationTimer() {
+					@Override
+					public void handle( long now ) {
+						if(++pulsesSinceSwap == 2){ //the pulse that drew the new face has run, this is the next one
+							profiler.record(Profiler.Phase.RENDER, swappedAt, -1);
+							stop();
+						}
+					}
+				};
+			}
+			
+			/*
+			 * With -Ddiegame.export=<file> every roll and game is also 
+			 * streamed to a compressed file, see ResultExport
 			 */
-			ImageView imageView = new ImageView();
+			if(System.getProperty("diegame.export") != null){
+				try {
+					export = new ResultExport(new File(System.getProperty("diegame.export")));
+				} catch ( IOException ioe ) {
+					System.err.println("Export not available: " + ioe.getMessage());
+				}
+			}
+			
+			/*
+			 * The image viewer, the image will be loaded here, or
+			 * the canvas it is drawn on in canvas rendering
+			 */
+			if(canvasRendering){
+				dieCanvas = new DieCanvas(300.0, 400.0);
+			} else {
+				imageView = new ImageView();
+				faceNumber = new Label();
+				faceNumber.setAlignment(Pos.CENTER);
+				faceNumber.setVisible(false);
+				AnchorPane.setTopAnchor(faceNumber, 0.0);
+				AnchorPane.setLeftAnchor(faceNumber, 0.0);
+				AnchorPane.setRightAnchor(faceNumber, 0.0);
+				AnchorPane.setBottomAnchor(faceNumber, 0.0);
+			}
 						
 			/*
 			 * The scene is created from the GridanchorPane root
@@ -126,7 +256,10 @@ public class Main extends Application {
 			 * Add the file application.css as a resource to the
 			 * scene's style sheets
 			 */
-			scene.getStylesheets().add( getClass().getResource("application.css").toExternalForm() );
+			URL css = Main.class.getResource("application.css");
+			if(css != null){ //without it the game still works, just unstyled
+				scene.getStylesheets().add( css.toExternalForm() );
+			}
 			
 			//STEP (B): CREATE SCENE GRAPH
 			
@@ -135,12 +268,16 @@ public class Main extends Application {
 			 */
 			buttonsBox.getChildren().add( startButton );
 			buttonsBox.getChildren().add( rollDieButton );
+			buttonsBox.getChildren().add( leaderboardButton );
 			buttonsBox.getChildren().add( quitButton );
 			
 			/*
-			 * The imageView goes into anchorPane
+			 * The imageView (or dieCanvas) goes into anchorPane
 			 */
-			anchorPane.getChildren().add( imageView );
+			anchorPane.getChildren().add( canvasRendering ? dieCanvas : imageView );
+			if(!canvasRendering){
+				anchorPane.getChildren().add( faceNumber );
+			}
 			
 			/*
 			 * The anchorPane and buttonsBox go into the
@@ -151,29 +288,30 @@ public class Main extends Application {
 			root.add( anchorPane, 0, 0 );
 			root.add( buttonsBox, 0, 1 );
 			
-			/*
-			 * Force the image to fit within the bounds of the anchorPane
-			 */
-			imageView.fitHeightProperty().bind( anchorPane.heightProperty() );
-			imageView.fitWidthProperty().bind( anchorPane.widthProperty() );
-			
-			/*
-			 * Preserve the aspect ratio of the image
-			 */
-			imageView.setPreserveRatio(true);
+			if(!canvasRendering){ //the canvas is already the size of the anchorPane and keeps the ratio itself
+				/*
+				 * Force the image to fit within the bounds of the anchorPane
+				 */
+				imageView.fitHeightProperty().bind( anchorPane.heightProperty() );
+				imageView.fitWidthProperty().bind( anchorPane.widthProperty() );
+				
+				/*
+				 * Preserve the aspect ratio of the image
+				 */
+				imageView.setPreserveRatio(true);
+			}
 			
 			//STEP 2: SET UP EVENT HANDLING
 				
 			/**
 			 * 
-			 * This startButton sets the rollDieButton disable method and btnClicked
-			 * variable to false, reset the point value to 0, then prompts the player for 
-			 * what type of die they would like to create, whether it be loaded or fair.  
-			 * Then an image containing all of the rules is displayed and remains so until 
-			 * the player clicks roll.
+			 * This startButton sets the rollDieButton disable method to false, then prompts 
+			 * the player for what type of die they would like to create, whether it be 
+			 * loaded or fair, and creates a new game for it.  Then an image containing all 
+			 * of the rules is displayed and remains so until the player clicks roll.
 			 * 
 			 * @throws IllegalArgumentException if numberOfSides is less than 3 or greater 
-			 * than 50, if the loadFactor is less than 1 or greater than 100, or if the 
+			 * than maxSides, if the loadFactor is less than 1 or greater than 100, or if the 
 			 * loadedSide is less than 1 or greater than their numberOfSides
 			 * 
 			 */
@@ -182,14 +320,12 @@ public class Main extends Application {
 				public void handle( ActionEvent event ) {
 					//reset everything
 					rollDieButton.setDisable(false); //if the player chooses to play again, make sure the roll button will work
-					point = 0; //that way whichever number they roll first, won't match and return loser/winner
-					//btnClicked = false; //resetting so the point value can again be saved for a new game
 					
 					//this is the first question the user is prompted for
 					//creating a text dialog so user can choose numberOfSides
 					TextInputDialog dialog = new TextInputDialog(); 
 					dialog.setTitle("Die Game");
-					dialog.setHeaderText("Specify how many sides you would like (between 1-50)"); 
+					dialog.setHeaderText("Specify how many sides you would like (between 3-" + maxSides + ")"); 
 					dialog.setContentText("Number of sides:");	
 					
 					//option for choosing loaded or fair die
@@ -210,9 +346,9 @@ public class Main extends Application {
 						try {
 							String stringSides = result.get(); 
 							numberOfSides = Integer.parseInt(stringSides);
-							if( (numberOfSides < 3) || (numberOfSides > 50) ){
-								throw new IllegalArgumentException("Error: n must be a positive number that is between 3-50\n");
-							} //will throw exception if numberOfSides is out of bounds, i.e. < 3 or > 50
+							if( (numberOfSides < 3) || (numberOfSides > maxSides) ){
+								throw new IllegalArgumentException("Error: n must be a positive number that is between 3-" + maxSides + "\n");
+							} //will throw exception if numberOfSides is out of bounds, i.e. < 3 or > maxSides
 								
 							typeAnswer = result2.get(); //made typeAnswer global so I could also reference it while rolling	
 								
@@ -249,12 +385,20 @@ public class Main extends Application {
 										} //will throw an exception if user inputs a loadedSide larger than the numberOfSides they specified
 									}
 							} 
-							//setting initial picture to be the rules of the game, also setting numberOfSides and highestRoll
-							highestRoll = numberOfSides; 
-							Image imageName = new Image(Main.class.getResourceAsStream("DieGameRules.jpg")); 
-							imageView.setImage( imageName );	
+							//timed from here, the dialogs only measure how long the player took to answer them
+							long began = (profiler != null) ? profiler.now() : 0;
+							long allocated = (profiler != null) ? profiler.allocated() : 0;
+							//the new game starts with no point value, so whichever number they roll first won't match and return loser/winner
+							DieGame next = (typeAnswer == "Loaded Die") ? new DieGame(numberOfSides, true, loadFactor, loadedSide, rand, rules)
+									: new DieGame(numberOfSides, false, 0, 0, rand, rules);
+							if(profiler != null){
+								profiler.record(Profiler.Phase.SETUP, began, allocated); //newGame times the rules image itself
+							}
+							newGame(next);
 						} catch ( IllegalArgumentException iae ) {
 							System.err.println(iae.getMessage());
+						} catch ( NullPointerException npe ) {
+							System.err.println( "Image not available in package directory." );
 						}
 					}
 				}	
@@ -262,728 +406,148 @@ public class Main extends Application {
 			
 			/**
 			 * 
-			 * This rollDieButton will roll either a loaded or fair die and if this is the 
-			 * users first roll, that value will be saved as the point value.  Then, every 
-			 * other time the die is rolled, it will go through and check to see which value 
-			 * was rolled so that it may display the correct image.  Next the point value 
-			 * will be compared with the current value rolled, if equal, the player wins.  
-			 * If at any point the player rolls a 1, they lose.
-			 * 
-			 * @throws NullPointerException if any of the images that are trying to be
-			 * loaded fail to load, most likely this will occur if the image is not within
-			 * the package directory
+			 * This rollDieButton only asks for a roll, the roll itself, the rules and
+			 * loading the die's image happen on the RollDispatcher's worker thread.  What
+			 * happens to clicks that arrive faster than the worker can roll is decided by
+			 * the diegame.backpressure system property (DROP or COALESCE, COALESCE if not 
+			 * set), so a burst of clicks can't queue up behind slow image loads.  BLOCK 
+			 * isn't allowed here, it would make the JavaFX thread wait for the worker.
 			 * 
 			 */
 			rollDieButton.setOnAction( new EventHandler<ActionEvent>() {
+				@Override
 				public void handle( ActionEvent event ) {
-					
-					//The die is rolled here, either as a loaded or fair die
-					if(typeAnswer == "Loaded Die"){
-						//rolls from 1-100, compares with user given factor, if value is not bigger than roll factor, loaded side is rolled, 
-						//else, roll as fair die, but will keep rolling as fair until it rolls a number that is not the loadedSide
-						rollValue = rand.nextInt((100 - 1) + 1) + 1; // generates a new randomized integer
-						if(rollValue <= loadFactor){ //checks to see if value is less than load factor, if so it will print loaded die
-							dieTop = loadedSide;
-						} else {
-							dieTop = rand.nextInt((highestRoll - lowestRoll) + 1) + lowestRoll; // generates a new randomized integer
-							while(dieTop == loadedSide){ //keeps rolling until it rolls anything but the loaded die
-								dieTop = rand.nextInt((highestRoll - lowestRoll) + 1) + lowestRoll; // generates a new randomized integer
-							}
+					rolls.submit(game); //nothing happens until Start has created a game
+				}
+			});
+			
+			/*
+			 * Every outcome arrives here on the worker thread.  The score is 
+			 * saved and the images are decoded here (the first time each 
+			 * face is rolled), then the outcome is left for the JavaFX thread 
+			 * to show.  Only the newest outcome is shown, so a burst of rolls 
+			 * costs one image swap.  Past the first roll of each face the worker 
+			 * allocates nothing but the runLater of each hand-off, at most one 
+			 * per frame shown; the save writer still allocates the file objects 
+			 * of every save it writes, see RollAllocationCheck.
+			 */
+			RollDispatcher.BackPressure policy = clickPolicy(System.getProperty("diegame.backpressure"));
+			if(Boolean.getBoolean("diegame.diagnostics")){
+				faceCounts = new FaceCounts();
+			}
+			rolls = new RollDispatcher(4, policy, new Consumer<DieGame.Outcome>() {
+				@Override
+				public void accept( DieGame.Outcome outcome ) {
+					if(outcome.isOver()){
+						recordScore(outcome);
+						saves.delete(); //a finished game can't be resumed
+					} else {
+						saves.saveAsync(outcome.game);
+					}
+					if(faceCounts != null){
+						synchronized(faceCounts){
+							faceCounts.add(outcome.dieTop);
 						}
-					} else { //it will roll a fair die
-						dieTop = rand.nextInt((highestRoll - lowestRoll) + 1) + lowestRoll; // generates a new randomized integer
 					}
-					if(btnClicked == false){ //the first time a user rolls, it will set the point value, afterwards the btnClicked will
-											 //be true and this portion of code will then always be skipped over
-						btnClicked = true;
-						point = dieTop; //keeps the first value that is rolled
-						Image imageName = new Image(Main.class.getResourceAsStream("Die_1.jpg")); 
-						imageView.setImage( imageName );
-						if(point == 1){ 
-							//set a timer, after 2s a new image will appear saying the player lost
-							Image newImageName = new Image(Main.class.getResourceAsStream("Loser.jpg"));
-							Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-							timeline.play();
-							rollDieButton.setDisable(true);
+					if(export != null){
+						try {
+							export.roll(outcome);
+						} catch ( IOException ioe ) {
+							System.err.println("Could not export roll, export stopped: " + ioe.getMessage());
+							export = null;
+						}
+					}
+					try {
+						if(images.hasFace(outcome.dieTop)){
+							images.face(outcome.dieTop); //loaded now so the JavaFX thread never waits for it
+						}
+						if(outcome.isOver()){
+							images.winner();
+							images.loser();
 						}
-					} //else, continue down to display dieTop or end game
-					try{
-						//These if/else if blocks display whatever number has been rolled and test for the point value
-						
-						if(dieTop == 1){ //rolls a 1
-							//if first roll, they lose, or if rolled before they roll their point value again, they lose
-							//since this was not their first time rolling a 1, maybe print out their score?
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_1.jpg")); 
-							imageView.setImage( imageName );
-							//set a timer, after 2s a new image will appear saying the player lost
-							Image newImageName = new Image(Main.class.getResourceAsStream("Loser.jpg"));
-							Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-							timeline.play(); //allows the player to see their roll before being told they have lost the game
-							rollDieButton.setDisable(true); //this way the player can no longer attempt to roll the die
-						} 
-						else if(dieTop == 2){ //rolls a 2
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_2.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 2){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play(); //allows the player to see their roll before being told they have lost the game
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 3){ //rolls a 3
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_3.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 3){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 4){ //rolls a 4
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_4.jpg")); 
-							imageView.setImage( imageName );
-							if(firstTimeThrough == false){
-								if(point == 4){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 5){ //rolls a 5
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_5.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 5){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 6){ //rolls a 6
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_6.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 6){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 7){ //rolls a 7
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_7.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 7){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 8){ //rolls a 8
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_8.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 8){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 9){ //rolls a 9
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_9.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 9){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 10){ //rolls a 10
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_10.jpg")); 
-							imageView.setImage( imageName );
-							if(firstTimeThrough == false){
-								if(point == 10){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 11){ //rolls a 11
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_11.jpg")); 
-							imageView.setImage( imageName );
-							if(firstTimeThrough == false){
-								if(point == 11){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 12){ //rolls a 12
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_12.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 12){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 13){ //rolls a 13
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_13.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 13){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 14){ //rolls a 14
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_14.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 14){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 15){ //rolls a 15
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_15.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 15){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 16){ //rolls a 16
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_16.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 16){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 17){ //rolls a 17
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_17.jpg")); 
-							imageView.setImage( imageName );
-							if(firstTimeThrough == false){
-								if(point == 17){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 18){ //rolls a 18
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_18.jpg")); 
-							imageView.setImage( imageName );
-							if(firstTimeThrough == false){
-								if(point == 18){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 19){ //rolls a 19
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_19.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 19){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 20){ //rolls a 20
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_20.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 20){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 21){ //rolls a 21
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_21.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 21){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 22){ //rolls a 22
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_22.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 22){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 23){ //rolls a 23
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_23.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 23){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 24){ //rolls a 24
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_24.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 24){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 25){ //rolls a 25
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_25.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 25){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 26){ //rolls a 26
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_26.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 26){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 27){ //rolls a 27
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_27.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 27){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 28){ //rolls a 28
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_28.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 28){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 29){ //rolls a 29
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_29.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 29){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 30){ //rolls a 30
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_30.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 30){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 31){ //rolls a 31
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_31.jpg")); 
-							imageView.setImage( imageName );
-							if(firstTimeThrough == false){
-								if(point == 31){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 32){ //rolls a 32
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_32.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 32){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 33){ //rolls a 33
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_33.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 33){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 34){ //rolls a 34
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_34.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 34){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 35){ //rolls a 35
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_35.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 35){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 36){ //rolls a 36
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_36.jpg")); 
-							imageView.setImage( imageName );
-							if(firstTimeThrough == false){
-								if(point == 36){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 37){ //rolls a 37
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_37.jpg")); 
-							imageView.setImage( imageName );
-							if(firstTimeThrough == false){
-								if(point == 37){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 38){ //rolls a 38
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_38.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 38){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 39){ //rolls a 39
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_39.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 39){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 40){ //rolls a 40
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_40.jpg")); 
-							imageView.setImage( imageName );
-							if(firstTimeThrough == false){
-								if(point == 40){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 41){ //rolls a 41
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_41.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 41){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 42){ //rolls a 42
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_42.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 42){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 43){ //rolls a 43
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_43.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 43){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 44){ //rolls a 44
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_44.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 44){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 45){ //rolls a 45
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_45.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 45){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 46){ //rolls a 46
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_46.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 46){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 47){ //rolls a 47
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_47.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 47){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 48){ //rolls a 48
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_48.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 48){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 49){ //rolls a 49
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_49.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 49){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						} else if(dieTop == 50){ //rolls a 50
-							Image imageName = new Image(Main.class.getResourceAsStream("Die_50.jpg")); 
-							imageView.setImage( imageName ); 
-							if(firstTimeThrough == false){
-								if(point == 50){
-									//set a timer, after 2s a new image will appear saying the player won
-									Image newImageName = new Image(Main.class.getResourceAsStream("Winner.jpg"));
-									Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), new KeyValue(imageView.imageProperty(), newImageName)));
-									timeline.play();
-									rollDieButton.setDisable(true);
-								}
-							}
-							firstTimeThrough = false;
-						}						
 					} catch ( NullPointerException npe ) {
 						System.err.println( "Image not available in package directory." );
+						return;
 					}
+					latestRoll.offer(outcome);
 				}
 			});
+			rolls.setProfiler(profiler);
+			
+			/*
+			 * With -Ddiegame.diagnostics=true a line over the die shows the 
+			 * garbage collector's pauses and what the roll worker and the save 
+			 * writer allocate per roll and the faces rolled so far, refreshed 
+			 * every second, and the images resident are reported on exit
+			 */
+			if(Boolean.getBoolean("diegame.diagnostics")){
+				Label diagnostics = new Label();
+				diagnostics.setStyle("-fx-background-color: rgba(0, 0, 0, 0.6); -fx-text-fill: white; -fx-font-size: 10px;");
+				AnchorPane.setTopAnchor(diagnostics, 0.0);
+				AnchorPane.setLeftAnchor(diagnostics, 0.0);
+				anchorPane.getChildren().add( diagnostics );
+				GcTelemetry gc = new GcTelemetry();
+				long[] last = new long[3]; //worker bytes, rolls and save writer bytes at the previous refresh
+				Timeline refresh = new Timeline(new KeyFrame(Duration.seconds(1), new EventHandler<ActionEvent>() {
+					@Override
+					public void handle( ActionEvent event ) {
+						long bytes = GcTelemetry.allocatedBytes(rolls.getWorker());
+						long rolled = rolls.getRolled();
+						long saved = GcTelemetry.allocatedBytes(saves.getWriter());
+						String perRoll = (rolled > last[1]) ? "roller " + ((bytes - last[0]) / (rolled - last[1])) + " B/roll, saver "
+								+ ((saved - last[2]) / (rolled - last[1])) + " B/roll" : "idle";
+						last[0] = bytes;
+						last[1] = rolled;
+						last[2] = saved;
+						String faces;
+						synchronized(faceCounts){
+							int common = faceCounts.getMostCommon();
+							faces = faceCounts.getDistinct() + " faces in " + faceCounts.getTotal() + " rolls, most often " + common 
+									+ " (" + faceCounts.get(common) + "x)";
+						}
+						diagnostics.setText(gc + "\n" + perRoll + "\n" + faces);
+					}
+				}));
+				refresh.setCycleCount(Timeline.INDEFINITE);
+				refresh.play();
+			}
 			
 			/**
 			 * 
-			 * This quitButton closes the window and exits out of the 
-			 * application, this is put inside a catch block in case 
-			 * any errors occur while closing out that need catching.
+			 * This leaderboardButton shows the best games from the leaderboard's
+			 * in-memory top list, so the history file is not read to display it.
 			 * 
-			 * @throws Exception if any errors occur while closing
-			 * the program 
+			 */
+			leaderboardButton.setOnAction( new EventHandler<ActionEvent>() {
+				@Override
+				public void handle( ActionEvent event ) {
+					StringBuilder board = new StringBuilder();
+					if(leaderboard != null){
+						int place = 1;
+						for(Leaderboard.Entry entry : leaderboard.top()){
+							board.append(place++).append(". ").append(entry).append("\n");
+						}
+					}
+					Alert alert = new Alert(Alert.AlertType.INFORMATION);
+					alert.setTitle("Die Game");
+					alert.setHeaderText("Leaderboard");
+					alert.setContentText(board.length() > 0 ? board.toString() : "No games have been played yet");
+					alert.showAndWait();
+				}
+			});
+			
+			/**
+			 * 
+			 * This quitButton closes the window and exits out of the 
+			 * application, everything is saved and closed in stop() 
+			 * the same as when the window itself is closed.
 			 *  
 			 */
 			quitButton.setOnAction( new EventHandler<ActionEvent>() {
 				@Override
 				public void handle( ActionEvent event ) {
-					try {
-						primaryStage.close(); // closes the window
-						Platform.exit(); // exits the current application thread		
-					} catch ( Exception e ) {
-						e.printStackTrace(System.err);
-					}
+					primaryStage.close(); // closes the window
+					Platform.exit(); // exits the current application thread, stop() runs first
 				}
 			});	
 			
@@ -992,11 +556,232 @@ public class Main extends Application {
 			primaryStage.setScene( scene );
 			primaryStage.show();
 			
+			resume();
+			
 		} catch(Exception e) {
 			e.printStackTrace();
 		}
 	}
 
+	/**
+	 * Shows a roll on the JavaFX thread, and if it ended the game starts the 
+	 * timer for the winner/loser image
+	 */
+	private void showRoll(DieGame.Outcome outcome) {
+		if(outcome.game != game){ //Start was clicked while this roll was on its way
+			return;
+		}
+		long began = (profiler != null) ? profiler.now() : 0;
+		long allocated = (profiler != null) ? profiler.allocated() : 0;
+		showFace(outcome.dieTop);
+		if(profiler != null){
+			profiler.record(Profiler.Phase.IMAGE_SWAP, began, allocated);
+			swappedAt = profiler.now(); //a swap before this one is drawn replaces it
+			pulsesSinceSwap = 0;
+			renderTimer.start();
+		}
+		if(outcome.isOver()){
+			began = (profiler != null) ? profiler.now() : 0;
+			allocated = (profiler != null) ? profiler.allocated() : 0;
+			DieImages.Sprite endImageName = (outcome.result == DieGame.Result.WIN) ? images.winner() : images.loser();
+			//set a timer, after 2s a new image will appear saying the player won or lost
+			endTimeline = new Timeline(new KeyFrame(Duration.seconds(2), new EventHandler<ActionEvent>() {
+				@Override
+				public void handle( ActionEvent event ) {
+					long shown = (profiler != null) ? profiler.now() : 0;
+					long allocatedBefore = (profiler != null) ? profiler.allocated() : 0;
+					show(endImageName);
+					if(profiler != null){
+						profiler.record(Profiler.Phase.END_IMAGE, shown, allocatedBefore);
+					}
+				}
+			}));
+			endTimeline.play(); //allows the player to see their roll before being told they have won or lost the game
+			if(profiler != null){
+				profiler.record(Profiler.Phase.ANIMATION, began, allocated);
+			}
+			rollDieButton.setDisable(true); //this way the player can no longer attempt to roll the die
+		}
+		if(rollListener != null){
+			rollListener.accept(outcome);
+		}
+	}
+
+	/**
+	 * Replaces the game being played and shows the rules until the first roll.
+	 * Must be called on the JavaFX thread.
+	 */
+	void newGame(DieGame newGame) {
+		if(endTimeline != null){
+			endTimeline.stop(); //the last game's winner/loser image mustn't cover the new game
+		}
+		game = newGame;
+		rollDieButton.setDisable(false);
+		//setting initial picture to be the rules of the game
+		long began = (profiler != null) ? profiler.now() : 0;
+		long allocated = (profiler != null) ? profiler.allocated() : 0;
+		show(images.rules());
+		if(profiler != null){
+			profiler.record(Profiler.Phase.RULES_IMAGE, began, allocated);
+		}
+	}
+
+	/**
+	 * Puts an image on screen, through whichever of imageView and dieCanvas 
+	 * is in use.  Must be called on the JavaFX thread.
+	 */
+	private void show(DieImages.Sprite sprite) {
+		if(canvasRendering){
+			dieCanvas.show(sprite); //draws nothing if it is already shown
+		} else {
+			faceNumber.setVisible(false);
+			imageView.setImage( sprite.image );
+			imageView.setViewport( sprite.viewport );
+		}
+	}
+
+	/**
+	 * Puts a face of the die on screen, its image if there is one and its 
+	 * number otherwise.  Must be called on the JavaFX thread.
+	 */
+	private void showFace(int dieTop) {
+		if(images.hasFace(dieTop)){
+			show(images.face(dieTop));
+		} else if(canvasRendering){
+			dieCanvas.showNumber(dieTop);
+		} else {
+			imageView.setImage( null );
+			faceNumber.setFont(Font.font(null, FontWeight.BOLD, DieCanvas.numberSize(dieTop, 300.0)));
+			faceNumber.setText(Integer.toString(dieTop));
+			faceNumber.setVisible(true);
+		}
+	}
+
+	/**
+	 * Carries on with the game saved when the application was last closed, if
+	 * there is one, showing the die as it was left.  Nothing is rolled again,
+	 * the game and the random generator are put back exactly as they were.
+	 */
+	private void resume() {
+		try {
+			DieGame saved = saves.resume(rand);
+			if((saved == null) || saved.isOver()){
+				return;
+			}
+			numberOfSides = saved.getNumberOfSides();
+			typeAnswer = saved.isLoaded() ? "Loaded Die" : "Fair Die";
+			loadFactor = saved.getLoadFactor();
+			loadedSide = saved.getLoadedSide();
+			newGame(saved);
+			if(saved.getLastRoll() > 0){
+				showFace(saved.getLastRoll());
+			}
+		} catch ( IOException ioe ) {
+			File aside = saves.setAside(); //or it fails again on every start
+			System.err.println("Could not resume saved game" + ((aside != null) ? ", it is kept as " + aside : "") + ": " + ioe.getMessage());
+		} catch ( NullPointerException npe ) {
+			System.err.println( "Image not available in package directory." );
+		}
+	}
+
+	/**
+	 * Clicks the roll button, does nothing if it is disabled.  Must be called
+	 * on the JavaFX thread.
+	 */
+	void roll() {
+		rollDieButton.fire();
+	}
+
+	/**
+	 * Writes the score of the game that just ended to the leaderboard, win or
+	 * lose, since the score is the number of rolls survived before the end
+	 */
+	private void recordScore(DieGame.Outcome outcome) {
+		if(leaderboard == null){
+			return;
+		}
+		try {
+			leaderboard.record(System.getProperty("user.name"), outcome.score, outcome.game.getNumberOfSides());
+		} catch ( IOException ioe ) {
+			System.err.println("Could not save score: " + ioe.getMessage());
+		}
+	}
+
+	/**
+	 * The back-pressure policy for roll clicks, COALESCE unless DROP is asked 
+	 * for.  BLOCK is only for scripted callers on their own threads, on the 
+	 * JavaFX thread it would freeze the window whenever the worker is slow.
+	 */
+	private static RollDispatcher.BackPressure clickPolicy(String name) {
+		if(name == null){
+			return RollDispatcher.BackPressure.COALESCE;
+		}
+		RollDispatcher.BackPressure policy;
+		try {
+			policy = RollDispatcher.BackPressure.valueOf(name.trim().toUpperCase());
+		} catch ( IllegalArgumentException iae ) {
+			System.err.println("Unknown back-pressure policy " + name + ", using COALESCE");
+			return RollDispatcher.BackPressure.COALESCE;
+		}
+		if(policy == RollDispatcher.BackPressure.BLOCK){
+			System.err.println("BLOCK would freeze the window while the worker is busy, using COALESCE for clicks");
+			return RollDispatcher.BackPressure.COALESCE;
+		}
+		return policy;
+	}
+
+	/**
+	 * Reads the house rules, falling back to the standard game if the file
+	 * can't be read or doesn't describe a valid variant
+	 */
+	private static GameRules loadRules(String file) {
+		if(file == null){
+			return GameRules.STANDARD;
+		}
+		try {
+			return GameRules.load(new File(file));
+		} catch ( IOException | IllegalArgumentException e ) {
+			System.err.println("Could not use house rules " + file + ", playing the standard game: " + e.getMessage());
+			return GameRules.STANDARD;
+		}
+	}
+
+	/**
+	 * Saves and closes everything when the application exits, whether Quit
+	 * was clicked or the window was closed.  This is put inside a catch block 
+	 * in case any errors occur while closing out that need catching.
+	 */
+	@Override
+	public void stop() {
+		try {
+			if(rolls != null){
+				rolls.shutdown(); // rolls still waiting are thrown away
+				rolls.getWorker().join(1000); // the roll being made finishes before the export is closed
+			}
+			if(saves != null){
+				if((game != null) && !game.isOver()){
+					saves.saveAsync(game);
+				}
+				saves.flush(); // the save is on disk before the application exits
+			}
+			if(leaderboard != null){
+				leaderboard.close(); // releases the leaderboard file
+			}
+			if(export != null){
+				export.close(); // the end of the compressed stream is written
+			}
+			if(profiler != null){
+				profiler.close(); // the recording is complete, ready to be sent in
+			}
+			if(Boolean.getBoolean("diegame.diagnostics")){ // what the images cost, with the rest of the diagnostics
+				System.out.println(images.getLoaded() + " images resident, " + (images.getResidentBytes() / 1024) 
+						+ " KB of pixels (" + (images.isSpriteSheet() ? "one sprite sheet" : images.isDownsampled() ? "decoded at most at display size" : "full resolution") + ")");
+			}
+		} catch ( Exception e ) {
+			e.printStackTrace(System.err);
+		}
+	}
+
 	public static void main(String[] args) {
 		launch(args);
 	}
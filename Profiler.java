@@ -0,0 +1,264 @@
+package application;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Records where the game spends its time, for diagnosing a slow game from a
+ * file a player sends in.  Run the game with -Ddiegame.profile=<file> and
+ * every phase below is written to the file as it happens, with how long it
+ * took and what the thread allocated meanwhile:
+ *
+ *     int magic, int version,
+ *     then per event: byte phase, long start (ns since recording began),
+ *                     long duration (ns), long bytes allocated
+ *
+ * Events go through a fixed buffer, so a long session doesn't grow the heap,
+ * and the file is closed on Quit or when the JVM exits.  The cold path is
+ * what happens once per game, the hot path what happens on every roll:
+ *
+ *     java -cp <classpath> application.Profiler summarize file
+ *
+ * prints both, phase by phase, as counts, time percentiles and allocation.
+ * The phases never time the same work twice, so each path's total is the
+ * time spent working on it; the phases that wait on a queue or on the next
+ * pulse (DISPATCH and RENDER) overlap whatever else ran meanwhile and are
+ * shown but left out of the totals.
+ */
+
+public class Profiler {
+
+	/**
+	 * What was being done
+	 */
+	public enum Phase {
+		/** creating a new game once the Start dialogs are answered, the wait for the player isn't counted */
+		SETUP(false, false),
+		/** loading and showing the rules image for a new game */
+		RULES_IMAGE(false, false),
+		/** a roll computed on the worker thread */
+		ROLL(true, false),
+		/** a roll waiting for the JavaFX thread, from the worker posting it to it being picked up */
+		DISPATCH(true, true),
+		/** setting the rolled face on the ImageView or drawing it on the canvas */
+		IMAGE_SWAP(true, false),
+		/** starting the winner/loser timeline at the end of a game */
+		ANIMATION(false, false),
+		/** showing the winner/loser image when the timeline fires */
+		END_IMAGE(false, false),
+		/**
+		 * from a face being swapped to the pulse after the one that drew it,
+		 * so the CSS, layout and hand-over to the renderer of that pulse are in
+		 * it; JavaFX 8 shows nothing of the render thread itself
+		 */
+		RENDER(true, true);
+
+		private final boolean hot;
+		private final boolean waiting;
+
+		Phase(boolean hot, boolean waiting) {
+			this.hot = hot;
+			this.waiting = waiting;
+		}
+
+		/**
+		 * True for phases that happen on every roll, false for once a game
+		 */
+		public boolean isHot() {
+			return hot;
+		}
+
+		/**
+		 * True for phases that time a wait, which other phases run during
+		 */
+		public boolean isWaiting() {
+			return waiting;
+		}
+	}
+
+	private static final int MAGIC = 0x44475046; //"DGPF"
+	private static final int VERSION = 2; //1 timed ANIMATION twice a game and nested RULES_IMAGE inside SETUP
+	private static final Phase[] PHASES = Phase.values();
+
+	private final DataOutputStream out;
+	private final long began = System.nanoTime();
+	private boolean closed;
+
+	/**
+	 * Starts recording into the file, replacing it, and closes it when the JVM exits
+	 */
+	public Profiler(File file) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if(parent != null){
+			parent.mkdirs();
+		}
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				close();
+			}
+		}, "profile-closer"));
+	}
+
+	/**
+	 * The time to pass to record as began
+	 */
+	public long now() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Bytes the calling thread has allocated so far, to pass to record as
+	 * allocatedBefore.  The counter costs a few bytes of its own on older JVMs.
+	 */
+	public long allocated() {
+		return GcTelemetry.allocatedBytes(Thread.currentThread());
+	}
+
+	/**
+	 * Records a phase that started at began (from now) with the thread having
+	 * allocated allocatedBefore (from allocated), ending now.  A phase that
+	 * started on another thread passes -1 for allocatedBefore, its allocation
+	 * isn't known.
+	 */
+	public void record(Phase phase, long began, long allocatedBefore) {
+		long ended = System.nanoTime();
+		long bytes = (allocatedBefore < 0) ? 0 : Math.max(0, allocated() - allocatedBefore);
+		synchronized(out){
+			if(closed){
+				return;
+			}
+			try {
+				out.writeByte(phase.ordinal());
+				out.writeLong(began - this.began);
+				out.writeLong(ended - began);
+				out.writeLong(bytes);
+			} catch ( IOException ioe ) {
+				System.err.println("Could not write profile, profiling stopped: " + ioe.getMessage());
+				closed = true;
+			}
+		}
+	}
+
+	/**
+	 * Writes out what is buffered and closes the file, nothing is recorded after
+	 */
+	public void close() {
+		synchronized(out){
+			if(closed){
+				return;
+			}
+			closed = true;
+			try {
+				out.close();
+			} catch ( IOException ioe ) {
+				System.err.println("Could not close profile: " + ioe.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Everything recorded for one phase
+	 */
+	private static class Times {
+		long[] nanos = new long[256];
+		int count;
+		long bytes;
+
+		void add(long duration, long allocated) {
+			if(count == nanos.length){
+				nanos = Arrays.copyOf(nanos, count * 2);
+			}
+			nanos[count++] = duration;
+			bytes += allocated;
+		}
+	}
+
+	/**
+	 * Reads a recording and prints its per-phase breakdown
+	 *
+	 * @throws IOException if the file can't be read or isn't a recording
+	 */
+	public static void summarize(File file) throws IOException {
+		Times[] times = new Times[PHASES.length];
+		for(int i = 0; i < times.length; i++){
+			times[i] = new Times();
+		}
+		long span = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+			if((in.readInt() != MAGIC) || (in.readInt() != VERSION)){
+				throw new IOException("Not a version " + VERSION + " profile");
+			}
+			while(true){
+				int phase;
+				try {
+					phase = in.readUnsignedByte();
+				} catch ( EOFException eof ) {
+					break;
+				}
+				if(phase >= PHASES.length){
+					throw new IOException("Profile is corrupt: unknown phase " + phase);
+				}
+				long start = in.readLong();
+				long duration = in.readLong();
+				times[phase].add(duration, in.readLong());
+				span = Math.max(span, start + duration);
+			}
+		} catch ( EOFException eof ) {
+			System.err.println("Profile is cut short, summarizing what is there");
+		}
+
+		System.out.printf("%.1f s recorded%n", span / 1e9);
+		for(boolean hot : new boolean[] { false, true }){
+			System.out.println(hot ? "hot path (every roll)" : "cold path (every game)");
+			System.out.printf("  %-12s %8s %10s %9s %9s %9s %9s %12s%n", "phase", "count", "total ms", "mean ms", "p50 ms",
+					"p99 ms", "max ms", "bytes/event");
+			long total = 0;
+			for(Phase phase : PHASES){
+				if(phase.isHot() != hot){
+					continue;
+				}
+				Times t = times[phase.ordinal()];
+				long sum = 0;
+				for(int i = 0; i < t.count; i++){
+					sum += t.nanos[i];
+				}
+				if(!phase.isWaiting()){
+					total += sum;
+				}
+				Arrays.sort(t.nanos, 0, t.count);
+				System.out.printf("  %-12s %8d %10.2f %9.3f %9.3f %9.3f %9.3f %12.0f%n", phase, t.count, sum / 1e6,
+						(t.count > 0) ? sum / 1e6 / t.count : 0.0, percentile(t, 0.50), percentile(t, 0.99),
+						(t.count > 0) ? t.nanos[t.count - 1] / 1e6 : 0.0, (t.count > 0) ? (double) t.bytes / t.count : 0.0);
+			}
+			System.out.printf("  %-12s %8s %10.2f  (waits left out)%n", "total", "", total / 1e6);
+		}
+	}
+
+	private static double percentile(Times t, double p) {
+		if(t.count == 0){
+			return 0;
+		}
+		int index = (int) Math.ceil(p * t.count) - 1;
+		return t.nanos[Math.max(0, Math.min(t.count - 1, index))] / 1e6;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if((args.length < 2) || !"summarize".equals(args[0])){
+			System.err.println("Usage: Profiler summarize file");
+			System.exit(2);
+		}
+		summarize(new File(args[1]));
+	}
+}
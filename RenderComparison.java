@@ -0,0 +1,145 @@
+package application;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.AnchorPane;
+import javafx.stage.Stage;
+
+/**
+ * Compares the frame time of the ways Main can show the die over a rapid
+ * sequence of rolls, a new roll every frame: an ImageView moving its viewport
+ * over the sprite sheet, an ImageView swapping between separate per-face
+ * Images, and a DieCanvas drawing out of the sprite sheet.  Every path shows
+ * the same rolls of the same seeded games.  Pulses should run back to back
+ * instead of at the screen's refresh rate, so a frame takes exactly as long
+ * as the work in it, which takes javafx.animation.fullspeed set before the
+ * toolkit starts.  Like LoadTestHarness it runs through HeadlessLauncher, no
+ * display is needed:
+ *
+ *     java -Djavafx.animation.fullspeed=true -cp <classpath> application.HeadlessLauncher RenderComparison [frames] [sides]
+ *
+ * frames defaults to 5000 for each path and sides to 6, where a roll often
+ * repeats the face already shown.  The separate images are decoded the way
+ * -Ddiegame.images=scaled (the default here) or full decodes them.
+ */
+
+public class RenderComparison extends Application {
+
+	private static final int WARMUP = 500; //frames before measuring starts, for each path
+
+	private int frames = 5000;
+	private int sides = 6;
+
+	@Override
+	public void init() {
+		List<String> args = getParameters().getRaw();
+		if(args.size() > 0){
+			frames = Integer.parseInt(args.get(0));
+		}
+		if(args.size() > 1){
+			sides = Integer.parseInt(args.get(1));
+		}
+		if(!Boolean.getBoolean("javafx.animation.fullspeed")){
+			System.err.println("javafx.animation.fullspeed isn't set, frames are held to the refresh rate");
+		}
+	}
+
+	@Override
+	public void start(final Stage stage) {
+		final AnchorPane anchorPane = new AnchorPane();
+		anchorPane.setMinSize(300.0, 400.0);
+		anchorPane.setMaxSize(300.0, 400.0);
+		anchorPane.setPrefSize(300.0, 400.0);
+		stage.setScene(new Scene(anchorPane, 300, 400));
+		stage.show();
+
+		final ImageView imageView = new ImageView();
+		imageView.fitHeightProperty().bind( anchorPane.heightProperty() );
+		imageView.fitWidthProperty().bind( anchorPane.widthProperty() );
+		imageView.setPreserveRatio(true);
+		final DieCanvas dieCanvas = new DieCanvas(300.0, 400.0);
+		final DieImages sheet = DieImages.create(300.0, 400.0, "sheet");
+		String mode = "full".equals(System.getProperty("diegame.images")) ? "full" : "scaled";
+		final DieImages separate = DieImages.create(300.0, 400.0, mode);
+
+		measure(anchorPane, imageView, sheet, "ImageView, sheet viewport", new Runnable() {
+			@Override
+			public void run() {
+				measure(anchorPane, imageView, separate, "ImageView, " + mode + " images", new Runnable() {
+					@Override
+					public void run() {
+						measure(anchorPane, dieCanvas, sheet, "Canvas, sheet", new Runnable() {
+							@Override
+							public void run() {
+								System.out.printf("canvas repainted %d times, skipped %d rolls that showed the same face%n",
+										dieCanvas.getRepaints(), dieCanvas.getSkipped());
+								Platform.exit();
+							}
+						});
+					}
+				});
+			}
+		});
+	}
+
+	/*
+	 * Shows a new roll every frame on the node, out of images, until enough
+	 * frames are measured, prints the frame times and then runs next
+	 */
+	private void measure(final AnchorPane anchorPane, final Node view, final DieImages images, final String path,
+			final Runnable next) {
+		anchorPane.getChildren().setAll(view);
+		final RestorableRandom rand = new RestorableRandom(2016); //the same rolls for both paths
+		final long[] frameNanos = new long[frames];
+		new AnimationTimer() {
+			private DieGame game = new DieGame(sides, rand);
+			private final DieGame.Outcome outcome = new DieGame.Outcome();
+			private long last;
+			private int frame;
+
+			@Override
+			public void handle(long now) {
+				if((frame > WARMUP) && (frame - WARMUP <= frames)){
+					frameNanos[frame - WARMUP - 1] = now - last;
+				}
+				last = now;
+				if(frame++ == WARMUP + frames){
+					stop();
+					report(path, frameNanos);
+					next.run();
+					return;
+				}
+				if(!game.roll(outcome) || outcome.isOver()){
+					game = new DieGame(sides, rand);
+					game.roll(outcome);
+				}
+				DieImages.Sprite sprite = images.face(outcome.dieTop);
+				if(view instanceof DieCanvas){
+					((DieCanvas) view).show(sprite);
+				} else {
+					((ImageView) view).setImage( sprite.image );
+					((ImageView) view).setViewport( sprite.viewport );
+				}
+			}
+		}.start();
+	}
+
+	private static void report(String path, long[] frameNanos) {
+		long total = 0;
+		for(long nanos : frameNanos){
+			total += nanos;
+		}
+		long[] sorted = frameNanos.clone();
+		Arrays.sort(sorted);
+		System.out.printf("%-26s %d frames: mean %.3f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms%n", path, sorted.length,
+				total / 1e6 / sorted.length, sorted[sorted.length / 2] / 1e6,
+				sorted[Math.max(0, (int) Math.ceil(0.99 * sorted.length) - 1)] / 1e6, sorted[sorted.length - 1] / 1e6);
+	}
+}
@@ -0,0 +1,56 @@
+package application;
+
+import java.util.Random;
+
+/**
+ * A Random whose state can be saved and put back, so a resumed game rolls
+ * exactly what it would have rolled had it never been closed.  It uses the same
+ * generator as java.util.Random, so a seed gives the same rolls either way.
+ * Like the game's use of Random, it is meant to be used from one thread at a time.
+ */
+
+public class RestorableRandom extends Random {
+
+	private static final long serialVersionUID = 1L;
+	private static final long MULTIPLIER = 0x5DEECE66DL;
+	private static final long ADDEND = 0xBL;
+	private static final long MASK = (1L << 48) - 1;
+
+	private long state; //set by setSeed, which Random's constructor calls, so it has no initializer
+
+	public RestorableRandom() {
+		super();
+	}
+
+	public RestorableRandom(long seed) {
+		super(seed);
+	}
+
+	@Override
+	public synchronized void setSeed(long seed) {
+		super.setSeed(seed);
+		state = (seed ^ MULTIPLIER) & MASK;
+	}
+
+	@Override
+	protected int next(int bits) {
+		synchronized(this){
+			state = (state * MULTIPLIER + ADDEND) & MASK;
+			return (int) (state >>> (48 - bits));
+		}
+	}
+
+	/**
+	 * The generator's current state, to be handed back to setState
+	 */
+	public synchronized long getState() {
+		return state;
+	}
+
+	/**
+	 * Puts the generator back to a state from getState
+	 */
+	public synchronized void setState(long state) {
+		this.state = state & MASK;
+	}
+}
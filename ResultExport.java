@@ -0,0 +1,503 @@
+package application;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams every roll and every game to a compressed file, for archiving long
+ * runs and analysing them later.  Records are written as they come through a
+ * fixed buffer and a gzip stream, so memory stays the same however big the
+ * file gets, and a Reader streams them back the same way.  After the header
+ * (int magic, int version) every record starts with a tag byte:
+ *
+ *     0-3  a roll, the tag is its Result, then the face as a zigzag varint of
+ *          the difference from the game's last face
+ *     4    the end of a game: varints sides, loadFactor (0 for a fair die),
+ *          loadedSide, rolls, result, score, then the time it ended as a
+ *          zigzag varint of milliseconds since the last game's
+ *     5    a new session, everything the deltas were taken from starts over
+ *
+ * Rolls belong to the game whose end record follows them.  A game left
+ * unfinished (Start clicked again, or the export closed) still gets an end
+ * record, with the result of its last roll.  Opening an existing file appends
+ * a new gzip member to it, which the Reader reads straight on from the last.
+ * A member left unfinished (the game was killed before the export was closed)
+ * would hide every member after it, so while a session is open <file>.open
+ * holds the length the file had when it began, and is removed once the
+ * session's member is finished.  If it is still there on the next open, the
+ * file is cut back to that length and the unfinished member copied to a file
+ * of its own, readable up to where it stops, without reading the rest of the
+ * archive.  The export is also closed when the JVM exits, and nothing is
+ * written after it is closed.  Rolls are meant to
+ * be written from one thread, and writing one allocates nothing.
+ *
+ *     java -cp <classpath> application.ResultExport csv file
+ *     java -cp <classpath> application.ResultExport simulate file games sides [seed]
+ */
+
+public class ResultExport implements Closeable {
+
+	private static final int MAGIC = 0x44474558; //"DGEX"
+	private static final int VERSION = 1;
+	private static final int GAME = 4;
+	private static final int SESSION = 5;
+	private static final int BUFFER = 64 * 1024;
+	private static final DieGame.Result[] RESULTS = DieGame.Result.values(); //values() copies the array every call
+
+	private final OutputStream out;
+	private final File marker; //<file>.open, there while a session is being written
+	private final byte[] buffer = new byte[BUFFER];
+	private int used;
+	private DieGame game; //the game the last roll belonged to, null after its end record
+	private int lastFace;
+	private int rolls; //rolls of the current game in this file
+	private DieGame.Result lastResult;
+	private int lastScore;
+	private long lastTime; //when the last game ended, the next game's time is written relative to it
+	private long written; //bytes handed to the compressor
+	private boolean closed;
+
+	/**
+	 * Opens the file for export, appending to it if it is already there and
+	 * whole, and closes it when the JVM exits
+	 *
+	 * @throws IOException if the file can't be written or is something other
+	 * than an export
+	 */
+	public ResultExport(File file) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if(parent != null){
+			parent.mkdirs();
+		}
+		marker = new File(file.getPath() + ".open");
+		if(file.exists() && (file.length() > 0)){
+			read(file).close(); //something other than an export isn't ours to append to or cut back
+			if(marker.exists()){
+				recover(file, marker);
+			}
+		}
+		boolean fresh = !file.exists() || (file.length() == 0);
+		try (DataOutputStream begun = new DataOutputStream(new FileOutputStream(marker))) {
+			begun.writeLong(fresh ? 0 : file.length());
+		}
+		out = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), BUFFER), BUFFER);
+		if(fresh){
+			writeInt(MAGIC);
+			writeInt(VERSION);
+		}
+		buffer[used++] = SESSION;
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					close();
+				} catch ( IOException ioe ) {
+					System.err.println("Could not close export: " + ioe.getMessage());
+				}
+			}
+		}, "export-closer"));
+	}
+
+	/*
+	 * The last session wasn't closed: moves its unfinished member, from the
+	 * length in the marker on, to a file of its own after a header member, and
+	 * cuts the export back to the members that are whole.  A marker that can't
+	 * be read leaves nothing to go by, so the whole file is moved aside.
+	 */
+	private static void recover(File file, File marker) throws IOException {
+		long begun;
+		try (DataInputStream in = new DataInputStream(new FileInputStream(marker))) {
+			begun = in.readLong();
+		} catch ( IOException ioe ) {
+			begun = -1;
+		}
+		File aside = new File(file.getPath() + "." + System.currentTimeMillis() + ".truncated");
+		if((begun <= 0) || (begun > file.length())){
+			if(!file.renameTo(aside)){
+				throw new IOException("Export " + file + " was left unfinished and can't be moved aside");
+			}
+		} else if(begun < file.length()){
+			ByteArrayOutputStream header = new ByteArrayOutputStream();
+			try (DataOutputStream member = new DataOutputStream(new GZIPOutputStream(header))) {
+				member.writeInt(MAGIC);
+				member.writeInt(VERSION);
+			}
+			try (RandomAccessFile export = new RandomAccessFile(file, "rw"); OutputStream out = new FileOutputStream(aside)) {
+				header.writeTo(out); //a member of its own, the unfinished one follows it unchanged
+				export.seek(begun);
+				byte[] copy = new byte[BUFFER];
+				int read;
+				while((read = export.read(copy)) > 0){
+					out.write(copy, 0, read);
+				}
+				export.setLength(begun);
+			}
+		} else {
+			return; //killed before anything of the session reached the file
+		}
+		System.err.println("Export " + file + " wasn't closed last time, what its last session wrote is kept as " + aside);
+	}
+
+	/**
+	 * Writes a roll, and the end of its game if it won or lost it
+	 */
+	public synchronized void roll(DieGame.Outcome outcome) throws IOException {
+		if(closed){
+			return;
+		}
+		if((game != null) && (outcome.game != game)){
+			endGame(); //the last game was left unfinished
+		}
+		if(game == null){
+			game = outcome.game;
+			lastFace = 0;
+			rolls = 0;
+		}
+		room(6);
+		buffer[used++] = (byte) outcome.result.ordinal();
+		writeVarint(zigzag(outcome.dieTop - lastFace));
+		lastFace = outcome.dieTop;
+		lastResult = outcome.result;
+		lastScore = outcome.score;
+		rolls++;
+		if(outcome.isOver()){
+			endGame();
+		}
+	}
+
+	//the end record of the current game
+	private void endGame() throws IOException {
+		long now = System.currentTimeMillis();
+		room(40);
+		buffer[used++] = GAME;
+		writeVarint(game.getNumberOfSides());
+		writeVarint(game.isLoaded() ? game.getLoadFactor() : 0);
+		writeVarint(game.isLoaded() ? game.getLoadedSide() : 0);
+		writeVarint(rolls);
+		writeVarint(lastResult.ordinal());
+		writeVarint(lastScore);
+		writeVarint(zigzagLong(now - lastTime));
+		lastTime = now;
+		game = null;
+	}
+
+	/**
+	 * Ends the game in progress, if there is one, and closes the file
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if(closed){
+			return;
+		}
+		closed = true;
+		try {
+			if(game != null){
+				endGame();
+			}
+			drain();
+		} finally {
+			out.close();
+		}
+		marker.delete(); //only once the member is finished
+	}
+
+	/**
+	 * Bytes written so far before compression
+	 */
+	public long getWritten() {
+		return written + used;
+	}
+
+	//makes sure the next record fits in the buffer
+	private void room(int bytes) throws IOException {
+		if(used + bytes > buffer.length){
+			drain();
+		}
+	}
+
+	private void drain() throws IOException {
+		out.write(buffer, 0, used);
+		written += used;
+		used = 0;
+	}
+
+	private void writeInt(int value) {
+		buffer[used++] = (byte) (value >>> 24);
+		buffer[used++] = (byte) (value >>> 16);
+		buffer[used++] = (byte) (value >>> 8);
+		buffer[used++] = (byte) value;
+	}
+
+	private void writeVarint(long value) {
+		while((value & ~0x7FL) != 0){
+			buffer[used++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[used++] = (byte) value;
+	}
+
+	private static long zigzag(int value) {
+		return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+	}
+
+	private static long zigzagLong(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	/**
+	 * Opens an export to be read back
+	 *
+	 * @throws IOException if the file can't be read or isn't an export
+	 */
+	public static Reader read(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			return new Reader(new GZIPInputStream(in, BUFFER));
+		} catch ( IOException ioe ) {
+			in.close();
+			throw ioe;
+		}
+	}
+
+	/**
+	 * Reads an export back one record at a time.  next() moves to the next
+	 * record and the getters describe it, for a roll only getFace and
+	 * getResult apply.
+	 */
+	public static class Reader implements Closeable {
+
+		private final InputStream in;
+		private final byte[] buffer = new byte[BUFFER];
+		private int used;
+		private int read;
+		private boolean roll;
+		private int face;
+		private DieGame.Result result;
+		private int sides;
+		private int loadFactor;
+		private int loadedSide;
+		private int rolls;
+		private int score;
+		private long time;
+
+		Reader(InputStream in) throws IOException {
+			this.in = in;
+			try {
+				if(readInt() != MAGIC){
+					throw new IOException("Not a die game export");
+				}
+				int version = readInt();
+				if(version != VERSION){
+					throw new IOException("Not a version " + VERSION + " export");
+				}
+			} catch ( IOException ioe ) {
+				in.close();
+				throw ioe;
+			}
+		}
+
+		/**
+		 * Moves to the next roll or game, false at the end of the file
+		 *
+		 * @throws IOException if the file can't be read or is corrupt
+		 */
+		public boolean next() throws IOException {
+			int tag;
+			while((tag = readByte()) == SESSION){
+				face = 0;
+				time = 0;
+			}
+			if(tag < 0){
+				return false;
+			}
+			if(tag < GAME){
+				if(!roll){ //the first roll of a game
+					face = 0;
+				}
+				roll = true;
+				result = RESULTS[tag];
+				face += unzigzag(readVarint());
+				return true;
+			}
+			if(tag != GAME){
+				throw new IOException("Export is corrupt: unknown record " + tag);
+			}
+			roll = false;
+			sides = (int) readVarint();
+			loadFactor = (int) readVarint();
+			loadedSide = (int) readVarint();
+			rolls = (int) readVarint();
+			int ordinal = (int) readVarint();
+			if(ordinal >= RESULTS.length){
+				throw new IOException("Export is corrupt: unknown result " + ordinal);
+			}
+			result = RESULTS[ordinal];
+			score = (int) readVarint();
+			long delta = readVarint();
+			time += (delta >>> 1) ^ -(delta & 1);
+			return true;
+		}
+
+		/**
+		 * True if the record is a roll, false if it is the end of a game
+		 */
+		public boolean isRoll() {
+			return roll;
+		}
+
+		public int getFace() {
+			return face;
+		}
+
+		public DieGame.Result getResult() {
+			return result;
+		}
+
+		public int getSides() {
+			return sides;
+		}
+
+		public int getLoadFactor() {
+			return loadFactor;
+		}
+
+		public int getLoadedSide() {
+			return loadedSide;
+		}
+
+		public int getRolls() {
+			return rolls;
+		}
+
+		public int getScore() {
+			return score;
+		}
+
+		/**
+		 * When the game ended, in milliseconds since 1970
+		 */
+		public long getTime() {
+			return time;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+
+		//the next byte, or -1 at the end of the file
+		private int readByte() throws IOException {
+			if(read == used){
+				used = in.read(buffer);
+				read = 0;
+				if(used <= 0){
+					used = 0;
+					return -1;
+				}
+			}
+			return buffer[read++] & 0xFF;
+		}
+
+		private int readInt() throws IOException {
+			int value = 0;
+			for(int i = 0; i < 4; i++){
+				int b = readByte();
+				if(b < 0){
+					throw new EOFException("Not a die game export");
+				}
+				value = (value << 8) | b;
+			}
+			return value;
+		}
+
+		private long readVarint() throws IOException {
+			long value = 0;
+			for(int shift = 0; shift < 64; shift += 7){
+				int b = readByte();
+				if(b < 0){
+					throw new EOFException("Export is cut short");
+				}
+				value |= (long) (b & 0x7F) << shift;
+				if((b & 0x80) == 0){
+					return value;
+				}
+			}
+			throw new IOException("Export is corrupt: varint too long");
+		}
+
+		private static int unzigzag(long value) {
+			return (int) ((value >>> 1) ^ -(value & 1));
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		if((args.length >= 2) && "csv".equals(args[0])){
+			toCsv(new File(args[1]), System.out);
+		} else if((args.length >= 4) && "simulate".equals(args[0])){
+			long seed = (args.length > 4) ? Long.parseLong(args[4]) : System.nanoTime();
+			simulate(new File(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]), seed);
+		} else {
+			System.err.println("Usage: ResultExport csv file");
+			System.err.println("       ResultExport simulate file games sides [seed]");
+			System.exit(2);
+		}
+	}
+
+	//every record as a line of CSV, streamed straight through
+	private static void toCsv(File file, PrintStream out) throws IOException {
+		try (Reader reader = read(file)) {
+			out.println("record,face,result,sides,loadFactor,loadedSide,rolls,score,time");
+			while(reader.next()){
+				if(reader.isRoll()){
+					out.println("roll," + reader.getFace() + "," + reader.getResult() + ",,,,,,");
+				} else {
+					out.println("game,," + reader.getResult() + "," + reader.getSides() + "," + reader.getLoadFactor() + ","
+							+ reader.getLoadedSide() + "," + reader.getRolls() + "," + reader.getScore() + "," + reader.getTime());
+				}
+			}
+		}
+		out.flush();
+	}
+
+	//plays games with a fair die into the file and reports how well it packed
+	private static void simulate(File file, int games, int sides, long seed) throws IOException {
+		RestorableRandom rand = new RestorableRandom(seed);
+		DieGame.Outcome outcome = new DieGame.Outcome();
+		long rolled = 0;
+		long began = System.nanoTime();
+		long raw;
+		long before;
+		try (ResultExport export = new ResultExport(file)) {
+			before = file.length(); //what earlier sessions wrote, this one's member isn't in the file yet
+			for(int i = 0; i < games; i++){
+				DieGame game = new DieGame(sides, rand);
+				while(game.roll(outcome)){
+					export.roll(outcome);
+					rolled++;
+					if(outcome.isOver()){
+						break;
+					}
+				}
+			}
+			raw = export.getWritten();
+		}
+		double seconds = (System.nanoTime() - began) / 1e9;
+		long compressed = file.length() - before;
+		System.out.printf("%d games, %d rolls in %.2f s: %d bytes encoded, %d compressed (%.3f bytes per roll)%n",
+				games, rolled, seconds, raw, compressed, (double) compressed / rolled);
+	}
+}
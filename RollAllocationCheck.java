@@ -0,0 +1,116 @@
+package application;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Checks that the roll worker's steady state allocates nothing.  Every roll
+ * goes through what Main's sink does with it: rolled into a reused Outcome,
+ * snapshotted for the save, written to a ResultExport and handed off through
+ * a LatestRoll.  Two things are left out.  The hand-off runs the show straight
+ * away instead of through Platform.runLater, which allocates its own queue
+ * entry, so the number of hand-offs is printed instead: at most one per frame
+ * in the game, here one per roll.  And the face images aren't looked up, that
+ * needs the JavaFX toolkit; past a face's first roll it is a lookup in
+ * DieImages.  Games are created before measuring starts and a finished game's
+ * score isn't recorded, so only rolls are counted.  No display is needed:
+ *
+ *     java -cp <classpath> application.RollAllocationCheck [rolls]
+ *
+ * Prints the bytes the worker allocated per roll, measured with the JVM's
+ * per-thread allocation counter, and exits with 1 if it is over
+ * check.bytesPerRoll (default 0.01, which leaves room for the counter's own
+ * bookkeeping).  What the save writer allocated is printed alongside but not
+ * checked: it allocates the temporary file, its stream and the paths for the
+ * rename on every save it writes, and writes only the newest snapshot.
+ */
+
+public class RollAllocationCheck {
+
+	public static void main(String[] args) throws Exception {
+		int rolls = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+		double limit = Double.parseDouble(System.getProperty("check.bytesPerRoll", "0.01"));
+		if(!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)){
+			System.err.println("This JVM can't count allocated bytes per thread");
+			System.exit(1);
+		}
+		File save = File.createTempFile("diegame-check", ".sav");
+		save.deleteOnExit();
+		File exported = File.createTempFile("diegame-check", ".dgex");
+		exported.deleteOnExit();
+		GameSnapshot saves = new GameSnapshot(save);
+		ResultExport export = new ResultExport(exported);
+		final long[] shown = new long[1];
+		LatestRoll latest = new LatestRoll(new Executor() { //runs the show at once, where Main uses Platform.runLater
+			@Override
+			public void execute(Runnable show) {
+				show.run();
+			}
+		}, new Consumer<DieGame.Outcome>() {
+			@Override
+			public void accept(DieGame.Outcome outcome) {
+				shown[0] += outcome.dieTop; //looked at, the way showRoll would
+			}
+		});
+		RestorableRandom rand = new RestorableRandom(2016);
+		DieGame.Outcome outcome = new DieGame.Outcome();
+
+		DieGame[] games = newGames(rolls, rand);
+		run(games, rolls / 10, outcome, saves, export, latest); //warm up, so the JIT has settled before measuring
+		games = newGames(rolls, rand);
+		long posts = latest.getPosts();
+		long writes = saves.getWrites();
+		long saverBefore = GcTelemetry.allocatedBytes(saves.getWriter());
+		long before = GcTelemetry.allocatedBytes(Thread.currentThread());
+		int rolled = run(games, rolls, outcome, saves, export, latest);
+		long allocated = GcTelemetry.allocatedBytes(Thread.currentThread()) - before;
+		saves.flush();
+		long saverAllocated = GcTelemetry.allocatedBytes(saves.getWriter()) - saverBefore;
+		writes = saves.getWrites() - writes;
+		posts = latest.getPosts() - posts;
+		export.close();
+
+		double perRoll = (double) allocated / rolled;
+		System.out.printf("%d rolls, %d hand-offs, %d bytes allocated, %.4f bytes per roll%n", rolled, posts, allocated, perRoll);
+		System.out.printf("save writer: %d saves written, %d bytes allocated, %.1f bytes per save (not checked)%n", writes,
+				saverAllocated, (writes > 0) ? (double) saverAllocated / writes : 0.0);
+		if(perRoll > limit){
+			System.err.printf("FAIL: %.4f bytes per roll is over %.4f%n", perRoll, limit);
+			System.exit(1);
+		}
+		System.out.println("PASS");
+	}
+
+	//enough games for the rolls, a 50 sided game lasts about 25 rolls so this is plenty
+	private static DieGame[] newGames(int rolls, RestorableRandom rand) {
+		DieGame[] games = new DieGame[rolls / 5 + 1];
+		for(int i = 0; i < games.length; i++){
+			games[i] = ((i & 1) == 0) ? new DieGame(50, true, 20, 1 + i % 50, rand, GameRules.STANDARD)
+					: new DieGame(50, false, 0, 0, rand, GameRules.STANDARD);
+		}
+		return games;
+	}
+
+	//rolls the games in turn, the way the worker and Main's sink do, and returns how many rolls were made
+	private static int run(DieGame[] games, int rolls, DieGame.Outcome outcome, GameSnapshot saves, ResultExport export,
+			LatestRoll latest) throws IOException {
+		int rolled = 0;
+		int game = 0;
+		while((rolled < rolls) && (game < games.length)){
+			if(!games[game].roll(outcome)){
+				game++;
+				continue;
+			}
+			rolled++;
+			if(!outcome.isOver()){
+				saves.saveAsync(outcome.game);
+			}
+			export.roll(outcome);
+			latest.offer(outcome);
+		}
+		return rolled;
+	}
+}
@@ -0,0 +1,161 @@
+package application;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Takes roll requests from the GUI (or from a script) and rolls them on a
+ * single worker thread, so a burst of clicks never runs game logic or image
+ * loading on the JavaFX application thread.  Requests wait in a bounded queue,
+ * and the BackPressure policy decides what happens to a request that arrives
+ * while the queue is full.
+ *
+ * The outcome of every roll is passed to the sink on the worker thread, it is
+ * the sink's job to hand whatever the GUI needs over to the JavaFX thread.  The
+ * worker fills in the same Outcome for every roll, so the sink must copy it if
+ * it needs it after returning.
+ */
+
+public class RollDispatcher {
+
+	/**
+	 * What to do with a roll request when the worker is behind
+	 */
+	public enum BackPressure {
+		/** the request is thrown away if the queue is full */
+		DROP,
+		/** a request arriving while another is still waiting is merged into it */
+		COALESCE,
+		/** the caller waits for room in the queue, only for scripted or auto-play threads */
+		BLOCK
+	}
+
+	private final BlockingQueue<DieGame> queue; //each request is the game to roll, so a new game can't be rolled by an old request
+	private final BackPressure policy;
+	private final Consumer<DieGame.Outcome> sink;
+	private final Thread worker;
+	private final AtomicLong submitted = new AtomicLong(); //requests accepted into the queue
+	private final AtomicLong rejected = new AtomicLong(); //requests dropped or coalesced
+	private final AtomicLong rolled = new AtomicLong(); //rolls the worker has made
+	private volatile boolean running = true;
+	private volatile Profiler profiler; //times every roll when set
+
+	/**
+	 * Creates a dispatcher and starts its worker thread
+	 *
+	 * @throws IllegalArgumentException if capacity is less than 1
+	 */
+	public RollDispatcher(int capacity, BackPressure policy, Consumer<DieGame.Outcome> sink) {
+		if(capacity < 1){
+			throw new IllegalArgumentException("Error: roll queue capacity must be at least 1");
+		}
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.policy = policy;
+		this.sink = sink;
+		this.worker = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				work();
+			}
+		}, "die-roller");
+		worker.setDaemon(true); //never keeps the application alive after Platform.exit()
+		worker.start();
+	}
+
+	/**
+	 * Asks for one roll of the given game, returns false if the request was
+	 * dropped or merged into one already waiting
+	 */
+	public boolean submit(DieGame game) {
+		if(!running || (game == null)){
+			return false;
+		}
+		boolean accepted;
+		switch(policy){
+		case COALESCE:
+			accepted = queue.isEmpty() && queue.offer(game); //only the worker takes, so an empty queue stays empty or gets our request
+			break;
+		case BLOCK:
+			try {
+				queue.put(game);
+				accepted = true;
+			} catch ( InterruptedException ie ) {
+				Thread.currentThread().interrupt();
+				accepted = false;
+			}
+			break;
+		default:
+			accepted = queue.offer(game);
+		}
+		if(accepted){
+			submitted.incrementAndGet();
+		} else {
+			rejected.incrementAndGet();
+		}
+		return accepted;
+	}
+
+	/**
+	 * Stops the worker, requests still waiting are discarded
+	 */
+	public void shutdown() {
+		running = false;
+		queue.clear();
+		worker.interrupt();
+	}
+
+	public long getSubmitted() {
+		return submitted.get();
+	}
+
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	public long getRolled() {
+		return rolled.get();
+	}
+
+	public BackPressure getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Times every roll from now on, null stops timing
+	 */
+	public void setProfiler(Profiler profiler) {
+		this.profiler = profiler;
+	}
+
+	/**
+	 * The worker thread, for measuring what it allocates
+	 */
+	public Thread getWorker() {
+		return worker;
+	}
+
+	private void work() {
+		DieGame.Outcome outcome = new DieGame.Outcome(); //reused for every roll
+		while(running){
+			try {
+				DieGame game = queue.take();
+				Profiler timing = profiler;
+				long began = (timing != null) ? timing.now() : 0;
+				long allocated = (timing != null) ? timing.allocated() : 0;
+				if(game.roll(outcome)){ //rolls asked for after the game ended are ignored
+					if(timing != null){
+						timing.record(Profiler.Phase.ROLL, began, allocated);
+					}
+					rolled.incrementAndGet();
+					sink.accept(outcome);
+				}
+			} catch ( InterruptedException ie ) {
+				return;
+			} catch ( RuntimeException re ) {
+				re.printStackTrace(System.err); //one bad roll mustn't kill the worker
+			}
+		}
+	}
+}
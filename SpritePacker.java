@@ -0,0 +1,127 @@
+package application;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Build-time tool that packs every image the game shows into one sprite sheet,
+ * so the game reads one file at startup instead of looking up 53 resources.
+ * Run it from the package directory whenever an image changes:
+ *
+ *     java application.SpritePacker . DieSprites.bin
+ *
+ * The output starts with an index, written with DataOutputStream:
+ *
+ *     int magic, int version, int count,
+ *     count x (UTF name, int x, int y, int width, int height),
+ *     int length, length bytes of the sheet as a PNG
+ *
+ * Each image keeps its own size unless it is larger than a cell, in which case
+ * it is scaled down to fit, keeping its aspect ratio.
+ */
+
+public class SpritePacker {
+
+	public static final int MAGIC = 0x44535052; //"DSPR"
+	public static final int VERSION = 1;
+	public static final int CELL_WIDTH = 300; //the size of the anchorPane the images are shown in
+	public static final int CELL_HEIGHT = 400;
+	private static final int COLUMNS = 8;
+
+	/**
+	 * The images packed into the sheet, in the order they are laid out
+	 */
+	public static List<String> imageNames() {
+		List<String> names = new ArrayList<>();
+		for(int side = 1; side <= DieImages.FACES; side++){
+			names.add("Die_" + side + ".jpg");
+		}
+		names.add("Winner.jpg");
+		names.add("Loser.jpg");
+		names.add("DieGameRules.jpg");
+		return names;
+	}
+
+	public static void main(String[] args) throws IOException {
+		File source = new File(args.length > 0 ? args[0] : ".");
+		File output = new File(args.length > 1 ? args[1] : "DieSprites.bin");
+		pack(source, output);
+	}
+
+	/**
+	 * Packs the images in the source directory into the output file
+	 *
+	 * @throws IOException if an image is missing or can't be read, or the output can't be written
+	 */
+	public static void pack(File source, File output) throws IOException {
+		List<String> names = imageNames();
+		List<BufferedImage> images = new ArrayList<>();
+		int cellWidth = 0;
+		int cellHeight = 0;
+		for(String name : names){
+			BufferedImage image = ImageIO.read(new File(source, name));
+			if(image == null){
+				throw new IOException(name + " is missing or is not an image");
+			}
+			image = fit(image);
+			images.add(image);
+			cellWidth = Math.max(cellWidth, image.getWidth());
+			cellHeight = Math.max(cellHeight, image.getHeight());
+		}
+		int rows = (names.size() + COLUMNS - 1) / COLUMNS;
+		BufferedImage sheet = new BufferedImage(cellWidth * COLUMNS, cellHeight * rows, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = sheet.createGraphics();
+		ByteArrayOutputStream index = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(index);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(names.size());
+		for(int i = 0; i < names.size(); i++){
+			BufferedImage image = images.get(i);
+			int x = (i % COLUMNS) * cellWidth;
+			int y = (i / COLUMNS) * cellHeight;
+			g.drawImage(image, x, y, null);
+			out.writeUTF(names.get(i));
+			out.writeInt(x);
+			out.writeInt(y);
+			out.writeInt(image.getWidth());
+			out.writeInt(image.getHeight());
+		}
+		g.dispose();
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(sheet, "png", png);
+		out.writeInt(png.size());
+		out.flush();
+		try (FileOutputStream file = new FileOutputStream(output)) {
+			index.writeTo(file);
+			png.writeTo(file);
+		}
+		System.out.println("Packed " + names.size() + " images into " + output + " (" + sheet.getWidth() + "x" + sheet.getHeight() + ")");
+	}
+
+	//scales an image down to fit a cell, smaller images are left alone
+	private static BufferedImage fit(BufferedImage image) {
+		double scale = Math.min(1.0, Math.min((double) CELL_WIDTH / image.getWidth(), (double) CELL_HEIGHT / image.getHeight()));
+		if(scale >= 1.0){
+			return image;
+		}
+		int width = (int) Math.round(image.getWidth() * scale);
+		int height = (int) Math.round(image.getHeight() * scale);
+		BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = scaled.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(image, 0, 0, width, height, null);
+		g.dispose();
+		return scaled;
+	}
+}
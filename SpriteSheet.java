@@ -0,0 +1,162 @@
+package application;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+
+/**
+ * Reads the sheet written by SpritePacker.  The file is mapped (or, inside a
+ * jar, read) once, the sheet is decoded into a single Image, and every packed
+ * image is served as a viewport into it.
+ */
+
+public class SpriteSheet {
+
+	private final Image sheet;
+	private final Map<String, Rectangle2D> viewports = new HashMap<>();
+
+	/**
+	 * Loads the sheet from a classpath resource, returns null if there is no
+	 * such resource so the caller can fall back to the separate images
+	 *
+	 * @throws IOException if the sheet exists but can't be read or isn't a sprite sheet
+	 */
+	public static SpriteSheet load(String resource) throws IOException {
+		URL url = Main.class.getResource(resource);
+		if(url == null){
+			return null;
+		}
+		return new SpriteSheet(read(url));
+	}
+
+	/**
+	 * @throws IOException if the sheet is cut short or corrupt, never a runtime
+	 * exception, so the caller can always fall back to the separate images
+	 */
+	private SpriteSheet(ByteBuffer buffer) throws IOException {
+		try {
+			if((buffer.getInt() != SpritePacker.MAGIC) || (buffer.getInt() != SpritePacker.VERSION)){
+				throw new IOException("Not a version " + SpritePacker.VERSION + " sprite sheet");
+			}
+			int count = buffer.getInt();
+			if((count < 0) || (count > buffer.remaining() / 18)){ //every entry is at least a length and four ints
+				throw new IOException("Sprite sheet is corrupt: " + count + " images");
+			}
+			for(int i = 0; i < count; i++){
+				String name = readUTF(buffer);
+				int x = buffer.getInt();
+				int y = buffer.getInt();
+				int width = buffer.getInt();
+				int height = buffer.getInt();
+				if((x < 0) || (y < 0) || (width <= 0) || (height <= 0)){
+					throw new IOException("Sprite sheet is corrupt: image " + i + " has no area");
+				}
+				viewports.put(name, new Rectangle2D(x, y, width, height));
+			}
+			int length = buffer.getInt();
+			if((length <= 0) || (length > buffer.remaining())){
+				throw new IOException("Sprite sheet is cut short: image of " + length + " bytes, " + buffer.remaining() + " left");
+			}
+			ByteBuffer png = buffer.slice();
+			png.limit(length);
+			sheet = new Image(new ByteBufferInputStream(png));
+		} catch ( BufferUnderflowException | IllegalArgumentException e ) {
+			throw new IOException("Sprite sheet is cut short or corrupt", e);
+		}
+		if(sheet.isError()){
+			throw new IOException("Sprite sheet image could not be decoded", sheet.getException());
+		}
+		for(Map.Entry<String, Rectangle2D> entry : viewports.entrySet()){
+			Rectangle2D viewport = entry.getValue();
+			if((viewport.getMaxX() > sheet.getWidth()) || (viewport.getMaxY() > sheet.getHeight())){
+				throw new IOException("Sprite sheet is corrupt: " + entry.getKey() + " lies outside the sheet");
+			}
+		}
+	}
+
+	/**
+	 * The one image every sprite is cut from
+	 */
+	public Image getImage() {
+		return sheet;
+	}
+
+	/**
+	 * Where in the sheet the named image was packed, or null if it wasn't
+	 */
+	public Rectangle2D viewport(String name) {
+		return viewports.get(name);
+	}
+
+	//maps the file when it is a plain file on disk, anything else (a jar) is read in one go
+	private static ByteBuffer read(URL url) throws IOException {
+		if("file".equals(url.getProtocol())){
+			try (RandomAccessFile file = new RandomAccessFile(new File(url.toURI()), "r")) {
+				return file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+			} catch ( URISyntaxException use ) {
+				throw new IOException(use);
+			}
+		}
+		try (InputStream in = url.openStream()) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] chunk = new byte[64 * 1024];
+			int n;
+			while((n = in.read(chunk)) != -1){
+				bytes.write(chunk, 0, n);
+			}
+			return ByteBuffer.wrap(bytes.toByteArray());
+		}
+	}
+
+	//the same modified UTF-8 DataOutputStream.writeUTF writes, names are plain ASCII
+	private static String readUTF(ByteBuffer buffer) {
+		int length = buffer.getShort() & 0xFFFF;
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Lets Image decode straight out of the mapped file without copying it
+	 */
+	private static class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if(!buffer.hasRemaining()){
+				return -1;
+			}
+			int n = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, n);
+			return n;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+}
@@ -0,0 +1,222 @@
+package application;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A knockout tournament of the die game.  Every round pairs up the players
+ * still in, each pair plays one game each with the same die, and whoever did
+ * better goes through: winning the game beats losing it, then the higher score,
+ * then a coin toss.  An odd player out gets a bye.
+ *
+ * Every match of a round runs as its own task, on a virtual thread when the JVM
+ * has them (Java 21 and later) and on a pool with one thread per core otherwise.
+ * A round is a scope of its own: it waits for all of its matches, and if one
+ * fails the rest are cancelled and the tournament stops, so a round never
+ * carries on with players missing.
+ *
+ *     java -cp <classpath> application.Tournament players sides [loadFactor loadedSide] [seed]
+ */
+
+public class Tournament {
+
+	/**
+	 * How long a round took
+	 */
+	public static class RoundReport {
+		public final int round;
+		public final int players; //players in the round
+		public final int matches; //matches played, not counting a bye
+		public final long nanos;
+
+		RoundReport(int round, int players, int matches, long nanos) {
+			this.round = round;
+			this.players = players;
+			this.matches = matches;
+			this.nanos = nanos;
+		}
+
+		public double matchesPerSecond() {
+			return (nanos > 0) ? matches * 1e9 / nanos : 0.0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("round %2d: %7d players, %7d matches in %8.2f ms (%.0f matches/s)",
+					round, players, matches, nanos / 1e6, matchesPerSecond());
+		}
+	}
+
+	private final int players;
+	private final int numberOfSides;
+	private final boolean loaded;
+	private final int loadFactor;
+	private final int loadedSide;
+	private final GameRules rules;
+	private final long seed; //every match's dice come from this, so a tournament can be replayed
+	private final List<RoundReport> reports = new ArrayList<>();
+
+	/**
+	 * @throws IllegalArgumentException if there are fewer than 2 players
+	 */
+	public Tournament(int players, int numberOfSides, boolean loaded, int loadFactor, int loadedSide, GameRules rules, long seed) {
+		if(players < 2){
+			throw new IllegalArgumentException("Error: a tournament needs at least 2 players");
+		}
+		new DieGame(numberOfSides, loaded, loadFactor, loadedSide, new Random(), rules); //the same checks as the Start dialog
+		this.players = players;
+		this.numberOfSides = numberOfSides;
+		this.loaded = loaded;
+		this.loadFactor = loadFactor;
+		this.loadedSide = loadedSide;
+		this.rules = rules;
+		this.seed = seed;
+	}
+
+	/**
+	 * Plays every round and returns the champion, players are numbered from 0
+	 *
+	 * @throws ExecutionException if a match failed, the tournament stops at that round
+	 */
+	public int run() throws InterruptedException, ExecutionException {
+		ExecutorService executor = newExecutor();
+		try {
+			int[] remaining = new int[players];
+			for(int i = 0; i < players; i++){
+				remaining[i] = i;
+			}
+			for(int round = 1; remaining.length > 1; round++){
+				remaining = playRound(executor, round, remaining);
+			}
+			return remaining[0];
+		} finally {
+			executor.shutdownNow();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+	}
+
+	/**
+	 * The time every round took, in order
+	 */
+	public List<RoundReport> getReports() {
+		return reports;
+	}
+
+	//plays every match of one round at once and returns who goes through, in bracket order
+	private int[] playRound(ExecutorService executor, final int round, final int[] players) throws InterruptedException, ExecutionException {
+		long began = System.nanoTime();
+		int matches = players.length / 2;
+		final int[] through = new int[(players.length + 1) / 2];
+		List<Future<?>> scope = new ArrayList<>(matches);
+		try {
+			for(int m = 0; m < matches; m++){
+				final int match = m;
+				scope.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() {
+						through[match] = play(round, match, players[2 * match], players[2 * match + 1]);
+						return null;
+					}
+				}));
+			}
+			for(Future<?> match : scope){
+				match.get();
+			}
+		} catch ( InterruptedException | ExecutionException | RuntimeException e ) {
+			for(Future<?> match : scope){
+				match.cancel(true); //the round failed, nothing else in it is worth finishing
+			}
+			throw e;
+		}
+		if((players.length & 1) == 1){
+			through[matches] = players[players.length - 1]; //the bye
+		}
+		reports.add(new RoundReport(round, players.length, matches, System.nanoTime() - began));
+		return through;
+	}
+
+	/*
+	 * The seed of one match, the tournament's seed run through SplitMix64's
+	 * finalizer with the match's place in the bracket, so matches next to each
+	 * other (and tournaments with seeds next to each other) get unrelated dice
+	 * instead of Random's near-identical streams for near-identical seeds
+	 */
+	static long matchSeed(long seed, int round, int match) {
+		long z = seed + (((long) round << 32) | match) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	//one match: both players play a game, the better result goes through
+	private int play(int round, int match, int first, int second) {
+		Random rand = new Random(matchSeed(seed, round, match));
+		DieGame.Outcome a = finish(new DieGame(numberOfSides, loaded, loadFactor, loadedSide, rand, rules));
+		DieGame.Outcome b = finish(new DieGame(numberOfSides, loaded, loadFactor, loadedSide, rand, rules));
+		boolean aWon = (a.result == DieGame.Result.WIN);
+		boolean bWon = (b.result == DieGame.Result.WIN);
+		if(aWon != bWon){
+			return aWon ? first : second;
+		}
+		if(a.score != b.score){
+			return (a.score > b.score) ? first : second;
+		}
+		return rand.nextBoolean() ? first : second;
+	}
+
+	//rolls a game to the end and returns its last outcome
+	private static DieGame.Outcome finish(DieGame game) {
+		DieGame.Outcome outcome = new DieGame.Outcome();
+		while(game.roll(outcome) && !outcome.isOver()){
+			//keep rolling
+		}
+		return outcome;
+	}
+
+	//a virtual thread per task when the JVM has them, found by reflection so the game still builds for Java 8
+	private static ExecutorService newExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch ( ReflectiveOperationException e ) {
+			return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		if(args.length < 2){
+			System.err.println("Usage: Tournament players sides [loadFactor loadedSide] [seed]");
+			System.exit(2);
+		}
+		int players = Integer.parseInt(args[0]);
+		int sides = Integer.parseInt(args[1]);
+		boolean loaded = args.length >= 4;
+		int loadFactor = loaded ? Integer.parseInt(args[2]) : 0;
+		int loadedSide = loaded ? Integer.parseInt(args[3]) : 0;
+		int seedArg = loaded ? 4 : 2;
+		long seed = (args.length > seedArg) ? Long.parseLong(args[seedArg]) : System.nanoTime();
+		GameRules rules = GameRules.STANDARD;
+		if(System.getProperty("diegame.rules") != null){
+			rules = GameRules.load(new File(System.getProperty("diegame.rules")));
+		}
+
+		Tournament tournament = new Tournament(players, sides, loaded, loadFactor, loadedSide, rules, seed);
+		long began = System.nanoTime();
+		int champion = tournament.run();
+		long nanos = System.nanoTime() - began;
+		long matches = 0;
+		for(RoundReport report : tournament.getReports()){
+			System.out.println(report);
+			matches += report.matches;
+		}
+		System.out.printf("champion: player %d, %d matches in %.2f ms (%.0f matches/s), seed %d%n",
+				champion, matches, nanos / 1e6, matches * 1e9 / nanos, seed);
+	}
+}